@@ -0,0 +1,371 @@
+/*
+ *
+ * Title :- Binary graph files for DijkstraAlgo, PrimMST and MaxFlow
+ *
+ * the text edge lists ("V E" and then "from to weight" per edge) are parsed again on every run,
+ * which takes longer than the query itself for the graphs that are used every day. this class
+ * converts such a text file once into a binary file that holds the graph in csr form, and later
+ * runs map the file and walk the edges straight out of the mapping.
+ *
+ * the file stores the edges twice, grouped by their start vertex (forward) and grouped by their
+ * end vertex (reverse), so a program that treats the edges as undirected (PrimMST) can see every
+ * edge at both of its ends without building anything. edges of one vertex keep their input order.
+ *
+ * with --varint the edge arrays are compressed: every edge is the difference to the previous
+ * target of the same vertex (the first one to the vertex itself) and its weight, both zigzag
+ * encoded as base-128 varints, and the offsets count bytes instead of edges. this roughly halves
+ * the file at the price of decoding the edges while walking them.
+ *
+ * weights are ints, unless one of them does not fit into an int (MaxFlow capacities can go up to
+ * a long). then the converter sets FLAG_LONG_WEIGHTS and every weight is stored as a big endian
+ * long, or as a zigzag varint of the long in a --varint file. only MaxFlow can use such a file,
+ * DijkstraAlgo and PrimMST refuse it.
+ *
+ * layout (big endian ints): MAGIC, flags, V, E, forward bytes, reverse bytes, then
+ *   plain:  forward offsets (V + 1), targets (E), weights (E), reverse offsets (V + 1), sources (E), weights (E)
+ *   varint: forward offsets (V + 1), reverse offsets (V + 1), forward bytes, reverse bytes
+ * with FLAG_LONG_WEIGHTS the weight arrays of a plain file hold E longs, 2 E ints each
+ *
+ * usage: java BinaryGraph <output file> [--varint] < graph.txt
+ */
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+public class BinaryGraph {
+
+    static final int MAGIC = 0x42475231; // "BGR1", marks a binary graph file
+    static final int FLAG_VARINT = 1;    // the edge arrays are varint compressed
+    static final int FLAG_LONG_WEIGHTS = 2; // the weights are longs
+    static final int HEADER_INTS = 6;
+
+    int vertexCount;          // number of vertices
+    int edgeCount;            // number of directed edges as they were in the text file
+    boolean compressed;       // true for a --varint file
+    boolean longWeights;      // true when the weights are stored as longs
+
+    IntBuffer forwardOffsets; // edge (or byte) position of every vertex's outgoing edges, V + 1 entries
+    IntBuffer forwardTargets; // plain files only
+    IntBuffer forwardWeights; // plain files with int weights only
+    LongBuffer forwardLongWeights; // plain files with long weights only
+    IntBuffer reverseOffsets; // the same for the incoming edges
+    IntBuffer reverseSources;
+    IntBuffer reverseWeights;
+    LongBuffer reverseLongWeights;
+    ByteBuffer forwardData;   // varint files only, the encoded outgoing edges
+    ByteBuffer reverseData;   // varint files only, the encoded incoming edges
+
+    /**
+     * walks the outgoing (or incoming) edges of one vertex at a time, for plain and varint files
+     * alike. after next() returns true, vertex and weight describe the current edge
+     */
+    static class Cursor {
+        BinaryGraph graph;
+        boolean reverse;  // incoming instead of outgoing edges
+        int position;     // next edge slot, or next byte for a varint file
+        int end;
+        int vertex;       // other end of the current edge
+        long weight;      // weight of the current edge, an int unless the file has long weights
+
+        Cursor(BinaryGraph graph, boolean reverse) {
+            this.graph = graph;
+            this.reverse = reverse;
+        }
+
+        /**
+         * positions the cursor before the first edge of u
+         */
+        void start(int u) {
+            IntBuffer offsets = reverse ? graph.reverseOffsets : graph.forwardOffsets;
+            position = offsets.get(u);
+            end = offsets.get(u + 1);
+            vertex = u;
+        }
+
+        boolean next() {
+            if (position == end) {
+                return false;
+            }
+            if (graph.compressed) {
+                ByteBuffer data = reverse ? graph.reverseData : graph.forwardData;
+                vertex += unzigzag(readVarint(data));
+                weight = graph.longWeights ? unzigzag(readLongVarint(data)) : unzigzag(readVarint(data));
+            } else {
+                vertex = (reverse ? graph.reverseSources : graph.forwardTargets).get(position);
+                if (graph.longWeights) {
+                    weight = (reverse ? graph.reverseLongWeights : graph.forwardLongWeights).get(position);
+                } else {
+                    weight = (reverse ? graph.reverseWeights : graph.forwardWeights).get(position);
+                }
+                position++;
+            }
+            return true;
+        }
+
+        int readVarint(ByteBuffer data) {
+            int result = 0;
+            for (int shift = 0;; shift += 7) {
+                byte b = data.get(position++);
+                result |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return result;
+                }
+            }
+        }
+
+        long readLongVarint(ByteBuffer data) {
+            long result = 0;
+            for (int shift = 0;; shift += 7) {
+                byte b = data.get(position++);
+                result |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return result;
+                }
+            }
+        }
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * maps a file written by write(), the arrays are views of the mapping so nothing is copied
+     * onto the heap and the operating system pages the graph in as the edges are walked
+     */
+    static BinaryGraph load(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            IntBuffer all = bytes.asIntBuffer();
+            if (all.limit() < HEADER_INTS || all.get(0) != MAGIC) {
+                throw new IOException(fileName + " is not a binary graph");
+            }
+            BinaryGraph graph = new BinaryGraph();
+            graph.compressed = (all.get(1) & FLAG_VARINT) != 0;
+            graph.longWeights = (all.get(1) & FLAG_LONG_WEIGHTS) != 0;
+            int weightInts = graph.longWeights ? 2 : 1;
+            int n = all.get(2);
+            int m = all.get(3);
+            int forwardBytes = all.get(4);
+            int reverseBytes = all.get(5);
+            long expected = graph.compressed
+                    ? 4L * (HEADER_INTS + 2L * (n + 1)) + forwardBytes + reverseBytes
+                    : 4L * (HEADER_INTS + 2L * (n + 1) + (2L + 2L * weightInts) * m);
+            if (n < 0 || m < 0 || forwardBytes < 0 || reverseBytes < 0 || bytes.limit() != expected) {
+                throw new IOException(fileName + " is truncated");
+            }
+            graph.vertexCount = n;
+            graph.edgeCount = m;
+
+            int at = HEADER_INTS;
+            graph.forwardOffsets = all.slice(at, n + 1);
+            at += n + 1;
+            if (graph.compressed) {
+                graph.reverseOffsets = all.slice(at, n + 1);
+                at += n + 1;
+                graph.forwardData = bytes.slice(4 * at, forwardBytes);
+                graph.reverseData = bytes.slice(4 * at + forwardBytes, reverseBytes);
+            } else {
+                graph.forwardTargets = all.slice(at, m);
+                at += m;
+                if (graph.longWeights) {
+                    graph.forwardLongWeights = bytes.slice(4 * at, 8 * m).asLongBuffer();
+                } else {
+                    graph.forwardWeights = all.slice(at, m);
+                }
+                at += weightInts * m;
+                graph.reverseOffsets = all.slice(at, n + 1);
+                at += n + 1;
+                graph.reverseSources = all.slice(at, m);
+                at += m;
+                if (graph.longWeights) {
+                    graph.reverseLongWeights = bytes.slice(4 * at, 8 * m).asLongBuffer();
+                } else {
+                    graph.reverseWeights = all.slice(at, m);
+                }
+            }
+            return graph;
+        }
+    }
+
+    /**
+     * writes the forward csr graph and its reverse to a file, varint compressed if asked for.
+     * when longWeights is not null the weights of the csr graphs are edge numbers and the real
+     * weight of edge i is longWeights[i], the file then gets FLAG_LONG_WEIGHTS
+     */
+    static long write(String fileName, DijkstraAlgo.CsrGraph forward, DijkstraAlgo.CsrGraph reverse, boolean varint,
+            long[] longWeights) throws IOException {
+        int n = forward.vertexCount;
+        int m = forward.edgeCount;
+        int flags = longWeights != null ? FLAG_LONG_WEIGHTS : 0;
+        ByteBuffer buffer;
+        if (varint) {
+            int[] forwardOffsets = new int[n + 1];
+            int[] reverseOffsets = new int[n + 1];
+            byte[] forwardData = encode(forward, longWeights, forwardOffsets);
+            byte[] reverseData = encode(reverse, longWeights, reverseOffsets);
+            buffer = ByteBuffer.allocate(Math.toIntExact(4L * (HEADER_INTS + 2L * (n + 1)) + forwardData.length
+                    + reverseData.length));
+            IntBuffer out = buffer.asIntBuffer();
+            out.put(MAGIC).put(flags | FLAG_VARINT).put(n).put(m).put(forwardData.length).put(reverseData.length);
+            out.put(forwardOffsets).put(reverseOffsets);
+            buffer.position(4 * out.position());
+            buffer.put(forwardData).put(reverseData);
+        } else {
+            int weightInts = longWeights != null ? 2 : 1;
+            buffer = ByteBuffer.allocate(Math.toIntExact(4L * (HEADER_INTS + 2L * (n + 1) + (2L + 2L * weightInts) * m)));
+            IntBuffer out = buffer.asIntBuffer();
+            out.put(MAGIC).put(flags).put(n).put(m).put(0).put(0);
+            out.put(forward.offsets).put(forward.targets);
+            putWeights(out, forward, longWeights);
+            out.put(reverse.offsets).put(reverse.targets);
+            putWeights(out, reverse, longWeights);
+        }
+        buffer.rewind();
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        return buffer.limit();
+    }
+
+    /**
+     * the weight array of a plain file, a long is written as its high and then its low int
+     */
+    static void putWeights(IntBuffer out, DijkstraAlgo.CsrGraph graph, long[] longWeights) {
+        if (longWeights == null) {
+            out.put(graph.weights, 0, graph.edgeCount);
+            return;
+        }
+        for (int slot = 0; slot < graph.edgeCount; slot++) {
+            long weight = longWeights[graph.weights[slot]];
+            out.put((int) (weight >>> 32)).put((int) weight);
+        }
+    }
+
+    /**
+     * varint encodes the edges of every vertex and fills in the byte offset of each vertex
+     */
+    static byte[] encode(DijkstraAlgo.CsrGraph graph, long[] longWeights, int[] byteOffsets) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2 * graph.edgeCount + 16);
+        for (int u = 0; u < graph.vertexCount; u++) {
+            byteOffsets[u] = out.size();
+            int previous = u;
+            for (int slot = graph.offsets[u]; slot < graph.offsets[u + 1]; slot++) {
+                writeVarint(out, zigzag(graph.targets[slot] - previous));
+                if (longWeights == null) {
+                    writeVarint(out, zigzag(graph.weights[slot]));
+                } else {
+                    writeVarint(out, zigzag(longWeights[graph.weights[slot]]));
+                }
+                previous = graph.targets[slot];
+            }
+        }
+        byteOffsets[graph.vertexCount] = out.size();
+        return out.toByteArray();
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * the converter, the text edge list is read from standard input with the same checks as the
+     * programs do, except for the weight sign which each program checks for itself when loading.
+     * the weights are read as longs, and the file only gets long weights when one of them needs it
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2 || (args.length == 2 && !args[1].equals("--varint"))) {
+            System.out.println("Usage: java BinaryGraph <output file> [--varint] < graph.txt");
+            return;
+        }
+        try {
+            EdgeListReader reader = new EdgeListReader(System.in);
+            if (!reader.hasNextInt()) {
+                System.out.println("please enter number of vertices");
+                return;
+            }
+            int numberOfVertices = reader.nextInt();
+            if (!reader.hasNextInt()) {
+                System.out.println("please enter number of edges");
+                return;
+            }
+            int numberOfEdges = reader.nextInt();
+            if (numberOfVertices < 0 || numberOfEdges < 0) {
+                System.out.println("number of vertices and edges must not be negative");
+                return;
+            }
+
+            int[] edgeFrom = new int[numberOfEdges];
+            int[] edgeTo = new int[numberOfEdges];
+            long[] edgeWeight = new long[numberOfEdges];
+            boolean longWeights = false;
+            for (int i = 0; i < numberOfEdges; i++) {
+                if (!reader.hasNextInt()) {
+                    System.out.println("edge start vertex expected");
+                    return;
+                }
+                edgeFrom[i] = reader.nextInt();
+                if (!reader.hasNextInt()) {
+                    System.out.println("edge end vertex expected");
+                    return;
+                }
+                edgeTo[i] = reader.nextInt();
+                if (!reader.hasNextLong()) {
+                    System.out.println(reader.hasNext() ? "edge weight must be an integer that fits into a long"
+                            : "edge weight expected");
+                    return;
+                }
+                edgeWeight[i] = reader.nextLong();
+                longWeights |= edgeWeight[i] != (int) edgeWeight[i];
+                if (edgeFrom[i] < 0 || edgeFrom[i] >= numberOfVertices || edgeTo[i] < 0
+                        || edgeTo[i] >= numberOfVertices) {
+                    System.out.println("vertex numbers must be between 0 and " + (numberOfVertices - 1));
+                    return;
+                }
+            }
+            reader.close();
+
+            // the csr graphs carry int weights, with long weights they carry the edge numbers instead
+            int[] csrWeight = new int[numberOfEdges];
+            for (int i = 0; i < numberOfEdges; i++) {
+                csrWeight[i] = longWeights ? i : (int) edgeWeight[i];
+            }
+            DijkstraAlgo.CsrGraph forward = DijkstraAlgo.CsrGraph.fromEdgeList(numberOfVertices, edgeFrom, edgeTo,
+                    csrWeight, numberOfEdges);
+            long size = write(args[0], forward, forward.reverse(), args.length == 2, longWeights ? edgeWeight : null);
+            System.out.println("wrote " + numberOfVertices + " vertices and " + numberOfEdges + " edges to "
+                    + args[0] + " (" + size + " bytes)");
+        } catch (IOException | ArithmeticException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+}
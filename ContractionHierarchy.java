@@ -0,0 +1,621 @@
+/*
+ *
+ * Title :- Contraction hierarchies for DijkstraAlgo
+ *
+ * a contraction hierarchy is built once per graph and then answers shortest path queries while
+ * touching only a few hundred vertices. the vertices are contracted one by one in the order of
+ * their edge difference (shortcuts added minus edges removed, plus the number of already
+ * contracted neighbours). contracting v removes it from the remaining graph, and for every pair
+ * u -> v -> x a shortcut u -> x is added unless a witness search finds a path from u to x that
+ * avoids v and is not longer. the position of v in this order is its rank.
+ *
+ * a query runs dijkstra from the source over edges that go up in rank, and dijkstra from the
+ * target over reversed edges that go up in rank, the shortest path is the best sum at a vertex
+ * reached by both. shortcuts remember the vertex they skip so the path is unpacked back into
+ * original edges, and getPath() returns the same kind of list as DijkstraAlgorithm.getPath().
+ *
+ * the hierarchy is stored as plain int arrays in csr form and can be saved to a file that is
+ * memory-mapped at query time, so it is built once and every later run only maps the file.
+ */
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+
+public class ContractionHierarchy {
+
+    static final int MAGIC = 0x43483031; // "CH01", marks a hierarchy file
+    static final int WITNESS_SETTLE_LIMIT = 500; // a witness search gives up after settling this many vertices
+
+    int vertexCount;        // number of vertices of the graph
+    IntBuffer rank;         // rank[v] is the position of v in the contraction order
+
+    // upward edges v -> x with rank[x] > rank[v], stored at v (used by the forward search)
+    IntBuffer forwardOffsets;
+    IntBuffer forwardTargets;
+    IntBuffer forwardWeights;
+    IntBuffer forwardMiddles; // vertex skipped by the shortcut, -1 for an original edge
+
+    // edges u -> v with rank[u] > rank[v], stored at v (used by the backward search)
+    IntBuffer backwardOffsets;
+    IntBuffer backwardSources;
+    IntBuffer backwardWeights;
+    IntBuffer backwardMiddles;
+
+    ContractionHierarchy(int vertexCount, IntBuffer rank, IntBuffer forwardOffsets, IntBuffer forwardTargets,
+            IntBuffer forwardWeights, IntBuffer forwardMiddles, IntBuffer backwardOffsets, IntBuffer backwardSources,
+            IntBuffer backwardWeights, IntBuffer backwardMiddles) {
+        this.vertexCount = vertexCount;
+        this.rank = rank;
+        this.forwardOffsets = forwardOffsets;
+        this.forwardTargets = forwardTargets;
+        this.forwardWeights = forwardWeights;
+        this.forwardMiddles = forwardMiddles;
+        this.backwardOffsets = backwardOffsets;
+        this.backwardSources = backwardSources;
+        this.backwardWeights = backwardWeights;
+        this.backwardMiddles = backwardMiddles;
+    }
+
+    /**
+     * the adjacency of one vertex in the graph that is still being contracted, three growable
+     * parallel arrays with one entry per neighbour (parallel edges are merged into the lightest)
+     */
+    static class EdgeBucket {
+        int size;
+        int[] other = new int[4];   // the neighbour
+        int[] weight = new int[4];  // weight of the edge to or from the neighbour
+        int[] middle = new int[4];  // vertex skipped by a shortcut, -1 for an original edge
+
+        int indexOf(int vertex) {
+            for (int i = 0; i < size; i++) {
+                if (other[i] == vertex) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        void add(int vertex, int w, int mid) {
+            if (size == other.length) {
+                other = Arrays.copyOf(other, size * 2);
+                weight = Arrays.copyOf(weight, size * 2);
+                middle = Arrays.copyOf(middle, size * 2);
+            }
+            other[size] = vertex;
+            weight[size] = w;
+            middle[size] = mid;
+            size++;
+        }
+
+        /**
+         * keeps the lighter of the existing and the new edge to 'vertex'
+         */
+        void addOrImprove(int vertex, int w, int mid) {
+            int index = indexOf(vertex);
+            if (index == -1) {
+                add(vertex, w, mid);
+            } else if (w < weight[index]) {
+                weight[index] = w;
+                middle[index] = mid;
+            }
+        }
+
+        void remove(int vertex) {
+            int index = indexOf(vertex);
+            if (index != -1) {
+                size--;
+                other[index] = other[size];
+                weight[index] = weight[size];
+                middle[index] = middle[size];
+            }
+        }
+    }
+
+    /**
+     * growable int array for the edges collected during contraction
+     */
+    static class IntList {
+        int size;
+        int[] values = new int[16];
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * the preprocessing, it contracts the vertices of the graph and keeps the state that is
+     * only needed while the hierarchy is being built
+     */
+    static class Builder {
+        int n;                   // number of vertices
+        EdgeBucket[] outEdges;   // remaining outgoing edges of every uncontracted vertex
+        EdgeBucket[] inEdges;    // remaining incoming edges, 'other' is the source
+        int[] contractedNeighbours; // how many neighbours of a vertex are contracted already
+        int[] rank;
+
+        // witness search state, the distances are valid only where the stamp is current
+        int[] witnessDistance;
+        int[] witnessStamp;
+        int currentStamp;
+        IndexedDaryHeap witnessQueue;
+
+        // upward edges recorded when their lower end is contracted
+        IntList upFrom = new IntList(), upTo = new IntList(), upWeight = new IntList(), upMiddle = new IntList();
+        IntList downFrom = new IntList(), downTo = new IntList(), downWeight = new IntList(), downMiddle = new IntList();
+
+        Builder(DijkstraAlgo.CsrGraph graph) {
+            n = graph.vertexCount;
+            outEdges = new EdgeBucket[n];
+            inEdges = new EdgeBucket[n];
+            for (int v = 0; v < n; v++) {
+                outEdges[v] = new EdgeBucket();
+                inEdges[v] = new EdgeBucket();
+            }
+            for (int u = 0; u < n; u++) {
+                for (int slot = graph.offsets[u]; slot < graph.offsets[u + 1]; slot++) {
+                    int v = graph.targets[slot];
+                    if (v != u) { // self loops never lie on a shortest path
+                        outEdges[u].addOrImprove(v, graph.weights[slot], -1);
+                        inEdges[v].addOrImprove(u, graph.weights[slot], -1);
+                    }
+                }
+            }
+            contractedNeighbours = new int[n];
+            rank = new int[n];
+            witnessDistance = new int[n];
+            witnessStamp = new int[n];
+            witnessQueue = new IndexedDaryHeap(n);
+        }
+
+        /**
+         * contracts every vertex, lazily re-checking the priority of the vertex on top of the
+         * queue and putting it back if it got worse than the next one
+         */
+        ContractionHierarchy build() {
+            IndexedDaryHeap order = new IndexedDaryHeap(n);
+            for (int v = 0; v < n; v++) {
+                order.insert(v, priority(v));
+            }
+
+            int nextRank = 0;
+            while (!order.isEmpty()) {
+                int v = order.extractMin();
+                int current = priority(v);
+                if (!order.isEmpty() && current > order.minKey()) {
+                    order.insert(v, current);
+                    continue;
+                }
+                contract(v, false);
+                rank[v] = nextRank++;
+            }
+            return toHierarchy();
+        }
+
+        /**
+         * edge difference plus contracted neighbours, smaller means contract earlier
+         */
+        int priority(int v) {
+            int shortcuts = contract(v, true);
+            return shortcuts - inEdges[v].size - outEdges[v].size + contractedNeighbours[v];
+        }
+
+        /**
+         * finds the shortcuts needed to remove v and returns how many there are, when 'simulate'
+         * is false they are added and v is taken out of the remaining graph
+         */
+        int contract(int v, boolean simulate) {
+            EdgeBucket in = inEdges[v];
+            EdgeBucket out = outEdges[v];
+            int shortcuts = 0;
+
+            for (int i = 0; i < in.size; i++) {
+                int u = in.other[i];
+                int toV = in.weight[i];
+
+                int longest = 0; // the witness search never needs to go beyond the longest path via v
+                for (int j = 0; j < out.size; j++) {
+                    if (out.other[j] != u) {
+                        longest = Math.max(longest, toV + out.weight[j]);
+                    }
+                }
+                if (longest == 0) {
+                    continue;
+                }
+                witnessSearch(u, v, longest);
+
+                for (int j = 0; j < out.size; j++) {
+                    int x = out.other[j];
+                    if (x == u) {
+                        continue;
+                    }
+                    int viaV = toV + out.weight[j];
+                    if (witnessStamp[x] == currentStamp && witnessDistance[x] <= viaV) {
+                        continue; // a path around v is just as short
+                    }
+                    shortcuts++;
+                    if (!simulate) {
+                        outEdges[u].addOrImprove(x, viaV, v);
+                        inEdges[x].addOrImprove(u, viaV, v);
+                    }
+                }
+            }
+
+            if (!simulate) {
+                removeFromRemainingGraph(v);
+            }
+            return shortcuts;
+        }
+
+        /**
+         * dijkstra from u in the remaining graph without v, bounded by 'limit' and by the settle limit
+         */
+        void witnessSearch(int u, int v, int limit) {
+            currentStamp++;
+            witnessQueue.clear();
+            witnessDistance[u] = 0;
+            witnessStamp[u] = currentStamp;
+            witnessQueue.insert(u, 0);
+
+            int settled = 0;
+            while (!witnessQueue.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+                if (witnessQueue.minKey() > limit) {
+                    break;
+                }
+                int c = witnessQueue.extractMin();
+                settled++;
+                EdgeBucket out = outEdges[c];
+                for (int i = 0; i < out.size; i++) {
+                    int e = out.other[i];
+                    if (e == v) {
+                        continue;
+                    }
+                    int candidate = witnessDistance[c] + out.weight[i];
+                    if (witnessStamp[e] != currentStamp || candidate < witnessDistance[e]) {
+                        witnessDistance[e] = candidate;
+                        witnessStamp[e] = currentStamp;
+                        witnessQueue.insertOrDecrease(e, candidate);
+                    }
+                }
+            }
+        }
+
+        /**
+         * every remaining edge of v goes to a vertex that is contracted later, so those edges are
+         * exactly the upward edges of v in the hierarchy, they are recorded before v is removed
+         */
+        void removeFromRemainingGraph(int v) {
+            EdgeBucket out = outEdges[v];
+            for (int i = 0; i < out.size; i++) {
+                int x = out.other[i];
+                upFrom.add(v);
+                upTo.add(x);
+                upWeight.add(out.weight[i]);
+                upMiddle.add(out.middle[i]);
+                inEdges[x].remove(v);
+                contractedNeighbours[x]++;
+            }
+            EdgeBucket in = inEdges[v];
+            for (int i = 0; i < in.size; i++) {
+                int u = in.other[i];
+                downFrom.add(u);
+                downTo.add(v);
+                downWeight.add(in.weight[i]);
+                downMiddle.add(in.middle[i]);
+                outEdges[u].remove(v);
+                contractedNeighbours[u]++;
+            }
+            outEdges[v] = null;
+            inEdges[v] = null;
+        }
+
+        /**
+         * packs the recorded edges into the two csr graphs of the hierarchy
+         */
+        ContractionHierarchy toHierarchy() {
+            int[] forwardOffsets = new int[n + 1];
+            int[] forwardTargets = new int[upFrom.size];
+            int[] forwardWeights = new int[upFrom.size];
+            int[] forwardMiddles = new int[upFrom.size];
+            pack(upFrom, upTo, upWeight, upMiddle, forwardOffsets, forwardTargets, forwardWeights, forwardMiddles);
+
+            int[] backwardOffsets = new int[n + 1];
+            int[] backwardSources = new int[downFrom.size];
+            int[] backwardWeights = new int[downFrom.size];
+            int[] backwardMiddles = new int[downFrom.size];
+            pack(downTo, downFrom, downWeight, downMiddle, backwardOffsets, backwardSources, backwardWeights,
+                    backwardMiddles);
+
+            return new ContractionHierarchy(n, IntBuffer.wrap(rank), IntBuffer.wrap(forwardOffsets),
+                    IntBuffer.wrap(forwardTargets), IntBuffer.wrap(forwardWeights), IntBuffer.wrap(forwardMiddles),
+                    IntBuffer.wrap(backwardOffsets), IntBuffer.wrap(backwardSources),
+                    IntBuffer.wrap(backwardWeights), IntBuffer.wrap(backwardMiddles));
+        }
+
+        /**
+         * the same two pass csr construction as DijkstraAlgo.CsrGraph.fromEdgeList, grouped by 'at'
+         */
+        void pack(IntList at, IntList other, IntList weight, IntList middle, int[] offsets, int[] others,
+                int[] weights, int[] middles) {
+            for (int i = 0; i < at.size; i++) {
+                offsets[at.values[i] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            int[] next = Arrays.copyOf(offsets, n);
+            for (int i = 0; i < at.size; i++) {
+                int slot = next[at.values[i]]++;
+                others[slot] = other.values[i];
+                weights[slot] = weight.values[i];
+                middles[slot] = middle.values[i];
+            }
+        }
+    }
+
+    /**
+     * builds the hierarchy of a graph, this is the expensive part that runs once per graph
+     */
+    static ContractionHierarchy build(DijkstraAlgo.CsrGraph graph) {
+        return new Builder(graph).build();
+    }
+
+    /**
+     * writes the hierarchy as: magic, vertex count, forward edge count, backward edge count, then
+     * rank, the forward csr arrays and the backward csr arrays, all as 4 byte big-endian ints
+     */
+    void save(String fileName) throws IOException {
+        IntBuffer[] parts = { rank, forwardOffsets, forwardTargets, forwardWeights, forwardMiddles, backwardOffsets,
+                backwardSources, backwardWeights, backwardMiddles };
+        long ints = 4;
+        for (IntBuffer part : parts) {
+            ints += part.limit();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(4 * ints));
+        IntBuffer out = buffer.asIntBuffer();
+        out.put(MAGIC).put(vertexCount).put(forwardTargets.limit()).put(backwardSources.limit());
+        for (IntBuffer part : parts) {
+            out.put(part.duplicate().rewind());
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * maps a file written by save(), the arrays are views of the mapping so nothing is copied
+     * onto the heap and the operating system pages the hierarchy in as the queries touch it
+     */
+    static ContractionHierarchy load(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            IntBuffer all = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asIntBuffer();
+            if (all.limit() < 4 || all.get(0) != MAGIC) {
+                throw new IOException(fileName + " is not a contraction hierarchy");
+            }
+            int n = all.get(1);
+            int forwardEdges = all.get(2);
+            int backwardEdges = all.get(3);
+            if (n < 0 || forwardEdges < 0 || backwardEdges < 0
+                    || all.limit() != 4 + n + 2L * (n + 1) + 3L * forwardEdges + 3L * backwardEdges) {
+                throw new IOException(fileName + " is truncated");
+            }
+            int at = 4;
+            IntBuffer rank = all.slice(at, n);
+            at += n;
+            IntBuffer forwardOffsets = all.slice(at, n + 1);
+            at += n + 1;
+            IntBuffer forwardTargets = all.slice(at, forwardEdges);
+            at += forwardEdges;
+            IntBuffer forwardWeights = all.slice(at, forwardEdges);
+            at += forwardEdges;
+            IntBuffer forwardMiddles = all.slice(at, forwardEdges);
+            at += forwardEdges;
+            IntBuffer backwardOffsets = all.slice(at, n + 1);
+            at += n + 1;
+            IntBuffer backwardSources = all.slice(at, backwardEdges);
+            at += backwardEdges;
+            IntBuffer backwardWeights = all.slice(at, backwardEdges);
+            at += backwardEdges;
+            IntBuffer backwardMiddles = all.slice(at, backwardEdges);
+            return new ContractionHierarchy(n, rank, forwardOffsets, forwardTargets, forwardWeights, forwardMiddles,
+                    backwardOffsets, backwardSources, backwardWeights, backwardMiddles);
+        }
+    }
+
+    /**
+     * one query on the hierarchy, the search state is kept between runs and only the entries that
+     * were touched are considered valid (by stamp), so a Query object can answer many queries
+     */
+    static class Query {
+        ContractionHierarchy hierarchy;
+        int[] forwardDistance, backwardDistance;
+        int[] forwardStamp, backwardStamp;
+        int[] forwardParent, backwardParent;       // previous vertex on the search tree
+        int[] forwardParentSlot, backwardParentSlot; // edge slot used to reach the vertex
+        IndexedDaryHeap forwardQueue, backwardQueue;
+        int stamp;
+
+        int source;
+        int target;
+        int best;        // shortest distance found, Integer.MAX_VALUE if none
+        int meeting;     // vertex where the best forward and backward paths meet
+
+        Query(ContractionHierarchy hierarchy) {
+            this.hierarchy = hierarchy;
+            int n = hierarchy.vertexCount;
+            forwardDistance = new int[n];
+            backwardDistance = new int[n];
+            forwardStamp = new int[n];
+            backwardStamp = new int[n];
+            forwardParent = new int[n];
+            backwardParent = new int[n];
+            forwardParentSlot = new int[n];
+            backwardParentSlot = new int[n];
+            forwardQueue = new IndexedDaryHeap(n);
+            backwardQueue = new IndexedDaryHeap(n);
+        }
+
+        /**
+         * the bidirectional upward search, each side stops once its smallest key is not below the
+         * best meeting distance, since every later meeting can only be longer
+         */
+        int run(int source, int target) {
+            this.source = source;
+            this.target = target;
+            stamp++;
+            forwardQueue.clear();
+            backwardQueue.clear();
+            best = Integer.MAX_VALUE;
+            meeting = -1;
+
+            reach(forwardDistance, forwardStamp, forwardParent, forwardParentSlot, forwardQueue, source, 0, -1, -1);
+            reach(backwardDistance, backwardStamp, backwardParent, backwardParentSlot, backwardQueue, target, 0, -1, -1);
+
+            while (true) {
+                boolean forwardOpen = !forwardQueue.isEmpty() && forwardQueue.minKey() < best;
+                boolean backwardOpen = !backwardQueue.isEmpty() && backwardQueue.minKey() < best;
+                if (!forwardOpen && !backwardOpen) {
+                    break;
+                }
+                if (forwardOpen && (!backwardOpen || forwardQueue.minKey() <= backwardQueue.minKey())) {
+                    int u = forwardQueue.extractMin();
+                    meet(u);
+                    IntBuffer offsets = hierarchy.forwardOffsets;
+                    for (int slot = offsets.get(u); slot < offsets.get(u + 1); slot++) {
+                        int v = hierarchy.forwardTargets.get(slot);
+                        int candidate = forwardDistance[u] + hierarchy.forwardWeights.get(slot);
+                        if (forwardStamp[v] != stamp || candidate < forwardDistance[v]) {
+                            reach(forwardDistance, forwardStamp, forwardParent, forwardParentSlot, forwardQueue, v,
+                                    candidate, u, slot);
+                            meet(v);
+                        }
+                    }
+                } else {
+                    int u = backwardQueue.extractMin();
+                    meet(u);
+                    IntBuffer offsets = hierarchy.backwardOffsets;
+                    for (int slot = offsets.get(u); slot < offsets.get(u + 1); slot++) {
+                        int v = hierarchy.backwardSources.get(slot);
+                        int candidate = backwardDistance[u] + hierarchy.backwardWeights.get(slot);
+                        if (backwardStamp[v] != stamp || candidate < backwardDistance[v]) {
+                            reach(backwardDistance, backwardStamp, backwardParent, backwardParentSlot, backwardQueue,
+                                    v, candidate, u, slot);
+                            meet(v);
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+
+        /**
+         * records a new distance for v on one side of the search
+         */
+        void reach(int[] distance, int[] stamps, int[] parent, int[] parentSlot, IndexedDaryHeap queue, int v,
+                int d, int from, int slot) {
+            distance[v] = d;
+            stamps[v] = stamp;
+            parent[v] = from;
+            parentSlot[v] = slot;
+            queue.insertOrDecrease(v, d);
+        }
+
+        /**
+         * checks whether v is reached from both sides and improves the best distance
+         */
+        void meet(int v) {
+            if (forwardStamp[v] == stamp && backwardStamp[v] == stamp) {
+                long total = (long) forwardDistance[v] + backwardDistance[v];
+                if (total < best) {
+                    best = (int) total;
+                    meeting = v;
+                }
+            }
+        }
+
+        int getShortestDistance() {
+            return best;
+        }
+
+        /**
+         * the path from source to target in original vertices, empty if no path exists
+         */
+        List<Integer> getPath() {
+            List<Integer> path = new ArrayList<>();
+            if (best == Integer.MAX_VALUE) {
+                return path;
+            }
+
+            // the forward half is walked back from the meeting vertex and then reversed
+            List<Integer> upward = new ArrayList<>();
+            for (int at = meeting; at != source; at = forwardParent[at]) {
+                upward.add(at);
+            }
+            upward.add(source);
+            Collections.reverse(upward);
+
+            path.add(source);
+            for (int i = 0; i + 1 < upward.size(); i++) {
+                int to = upward.get(i + 1);
+                unpack(upward.get(i), to, hierarchy.forwardMiddles.get(forwardParentSlot[to]), path);
+            }
+            for (int at = meeting; at != target; at = backwardParent[at]) {
+                unpack(at, backwardParent[at], hierarchy.backwardMiddles.get(backwardParentSlot[at]), path);
+            }
+            return path;
+        }
+
+        /**
+         * appends the original vertices after 'from' on the edge from -> to, a shortcut is split at
+         * its middle vertex into two lower edges until only original edges are left
+         */
+        void unpack(int from, int to, int middle, List<Integer> path) {
+            Deque<int[]> stack = new ArrayDeque<>();
+            stack.push(new int[] { from, to, middle });
+            while (!stack.isEmpty()) {
+                int[] edge = stack.pop();
+                int mid = edge[2];
+                if (mid == -1) {
+                    path.add(edge[1]);
+                    continue;
+                }
+                // the middle vertex was contracted before both ends, so both halves are stored at it
+                stack.push(new int[] { mid, edge[1], hierarchy.forwardMiddles.get(hierarchy.findForward(mid, edge[1])) });
+                stack.push(new int[] { edge[0], mid, hierarchy.backwardMiddles.get(hierarchy.findBackward(mid, edge[0])) });
+            }
+        }
+    }
+
+    /**
+     * slot of the upward edge v -> to
+     */
+    int findForward(int v, int to) {
+        for (int slot = forwardOffsets.get(v); slot < forwardOffsets.get(v + 1); slot++) {
+            if (forwardTargets.get(slot) == to) {
+                return slot;
+            }
+        }
+        throw new IllegalStateException("missing hierarchy edge " + v + " -> " + to);
+    }
+
+    /**
+     * slot of the edge from -> v stored at v
+     */
+    int findBackward(int v, int from) {
+        for (int slot = backwardOffsets.get(v); slot < backwardOffsets.get(v + 1); slot++) {
+            if (backwardSources.get(slot) == from) {
+                return slot;
+            }
+        }
+        throw new IllegalStateException("missing hierarchy edge " + from + " -> " + v);
+    }
+}
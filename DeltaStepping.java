@@ -0,0 +1,219 @@
+/*
+ *
+ * Title :- Delta-stepping single source shortest paths for DijkstraAlgo
+ *
+ * delta-stepping (Meyer and Sanders) computes the same distances as dijkstra from one source to
+ * every vertex, but settles a whole bucket of vertices at a time so the relaxations can run on
+ * several threads. bucket i holds the vertices whose tentative distance lies in
+ * [i * delta, (i + 1) * delta). edges lighter than delta are "light" and can put a vertex back
+ * into the bucket being processed, so bucket i is relaxed over its light edges again and again
+ * until it stays empty; after that the heavy edges of every vertex that was in the bucket are
+ * relaxed once, they can only reach later buckets.
+ *
+ * the relaxations of one round run in parallel over chunks of the frontier, the distance array
+ * is a plain int[] that is updated with an atomic compare-and-set minimum through a VarHandle.
+ * a small delta behaves like dijkstra (little parallelism, little wasted work), a large delta
+ * like bellman-ford (much parallelism, more re-relaxations), delta is therefore a parameter.
+ */
+
+import java.lang.invoke.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class DeltaStepping implements AutoCloseable {
+
+    static final VarHandle DISTANCE = MethodHandles.arrayElementVarHandle(int[].class);
+    static final int PARALLEL_THRESHOLD = 256; // frontiers smaller than this are relaxed on the calling thread
+
+    DijkstraAlgo.CsrGraph graph; // the graph, only its offsets are used, edges are reordered below
+    int delta;                   // bucket width
+    int threads;                 // number of worker threads
+    ExecutorService pool;        // the workers, null when running on one thread
+
+    int[] targets;               // edge targets, for every vertex its light edges come first
+    int[] weights;               // edge weights in the same order
+    int[] lightEnd;              // lightEnd[v] is the end of v's light edges, heavy ones follow until offsets[v + 1]
+
+    int[] distances;             // result of the last run, Integer.MAX_VALUE for unreachable vertices
+
+    DeltaStepping(DijkstraAlgo.CsrGraph graph, int delta, int threads) {
+        if (delta < 1) {
+            throw new IllegalArgumentException("delta must be a positive integer");
+        }
+        this.graph = graph;
+        this.delta = delta;
+        this.threads = threads;
+        pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+
+        // the light/heavy split is done once, by reordering the edges of every vertex
+        int n = graph.vertexCount;
+        targets = new int[graph.edgeCount];
+        weights = new int[graph.edgeCount];
+        lightEnd = new int[n];
+        for (int u = 0; u < n; u++) {
+            int light = graph.offsets[u];
+            int heavy = graph.offsets[u + 1];
+            for (int slot = graph.offsets[u]; slot < graph.offsets[u + 1]; slot++) {
+                int at = graph.weights[slot] < delta ? light++ : --heavy;
+                targets[at] = graph.targets[slot];
+                weights[at] = graph.weights[slot];
+            }
+            lightEnd[u] = light;
+        }
+    }
+
+    /**
+     * growable int array, one per bucket and one per relaxation task
+     */
+    static class IntList {
+        int size;
+        int[] values = new int[16];
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * computes the distances from the source to every vertex
+     */
+    int[] run(int source) throws InterruptedException, ExecutionException {
+        int n = graph.vertexCount;
+        distances = new int[n];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+
+        // every tentative distance is within maxWeight of the current bucket, so that many buckets
+        // used cyclically are enough however long the paths get
+        int maxWeight = 0;
+        for (int w : weights) {
+            maxWeight = Math.max(maxWeight, w);
+        }
+        int bucketCount = maxWeight / delta + 2;
+        IntList[] buckets = new IntList[bucketCount];
+        for (int b = 0; b < bucketCount; b++) {
+            buckets[b] = new IntList();
+        }
+
+        int[] frontierStamp = new int[n]; // round in which a vertex was last put into a frontier
+        int[] settledStamp = new int[n];  // bucket (+1) in which a vertex was last settled
+        int round = 0;
+
+        distances[source] = 0;
+        buckets[0].add(source);
+        long current = 0;
+        int remaining = 1; // entries in all buckets, some may be stale
+
+        while (remaining > 0) {
+            IntList bucket = buckets[(int) (current % bucketCount)];
+            IntList settled = new IntList();
+
+            // light edges, repeated until no relaxation puts a vertex back into this bucket
+            while (bucket.size > 0) {
+                round++;
+                IntList frontier = new IntList();
+                for (int i = 0; i < bucket.size; i++) {
+                    int v = bucket.values[i];
+                    if (distances[v] / delta == current && frontierStamp[v] != round) {
+                        frontierStamp[v] = round;
+                        frontier.add(v);
+                        if (settledStamp[v] != current + 1) {
+                            settledStamp[v] = (int) (current + 1);
+                            settled.add(v);
+                        }
+                    }
+                }
+                remaining -= bucket.size;
+                bucket.size = 0;
+                remaining += distribute(relax(frontier, true), buckets);
+            }
+
+            // heavy edges of everything settled in this bucket, they only reach later buckets
+            remaining += distribute(relax(settled, false), buckets);
+
+            if (remaining > 0) {
+                do {
+                    current++;
+                } while (buckets[(int) (current % bucketCount)].size == 0);
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * relaxes the light or the heavy edges of every vertex in the frontier and returns the
+     * vertices whose distance went down, the frontier is split into chunks across the pool
+     */
+    List<IntList> relax(IntList frontier, boolean light) throws InterruptedException, ExecutionException {
+        List<IntList> improved = new ArrayList<>();
+        if (pool == null || frontier.size < PARALLEL_THRESHOLD) {
+            improved.add(relaxRange(frontier, 0, frontier.size, light));
+            return improved;
+        }
+
+        int chunks = threads * 4;
+        int chunkSize = (frontier.size + chunks - 1) / chunks;
+        List<Future<IntList>> tasks = new ArrayList<>();
+        for (int start = 0; start < frontier.size; start += chunkSize) {
+            int from = start;
+            int to = Math.min(start + chunkSize, frontier.size);
+            tasks.add(pool.submit(() -> relaxRange(frontier, from, to, light)));
+        }
+        for (Future<IntList> task : tasks) {
+            improved.add(task.get());
+        }
+        return improved;
+    }
+
+    /**
+     * one relaxation task, the new distance is written with a compare-and-set loop so concurrent
+     * relaxations of the same vertex keep the minimum
+     */
+    IntList relaxRange(IntList frontier, int from, int to, boolean light) {
+        IntList improved = new IntList();
+        int[] offsets = graph.offsets;
+        for (int i = from; i < to; i++) {
+            int u = frontier.values[i];
+            int du = (int) DISTANCE.getAcquire(distances, u);
+            int first = light ? offsets[u] : lightEnd[u];
+            int last = light ? lightEnd[u] : offsets[u + 1];
+            for (int slot = first; slot < last; slot++) {
+                int v = targets[slot];
+                int candidate = du + weights[slot];
+                int old = (int) DISTANCE.getAcquire(distances, v);
+                while (candidate < old) {
+                    if (DISTANCE.compareAndSet(distances, v, old, candidate)) {
+                        improved.add(v);
+                        break;
+                    }
+                    old = (int) DISTANCE.getAcquire(distances, v);
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * puts the improved vertices into the bucket of their final distance of this round, a vertex
+     * improved twice is added twice and the stale copy is skipped when its bucket is processed
+     */
+    int distribute(List<IntList> improved, IntList[] buckets) {
+        int added = 0;
+        for (IntList list : improved) {
+            for (int i = 0; i < list.size; i++) {
+                int v = list.values[i];
+                buckets[(distances[v] / delta) % buckets.length].add(v);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+}
@@ -6,7 +6,7 @@
  * Date: 2024-09-18
 
  * In this implementation the focus is on Dijkstra's algorithm to determine the shortest path between two specified vertices. 
- * with the help of custom min-heap the priority queue is managed, and the operations like decrease key are also implemented. 
+ * with the help of custom min-heap (the indexed d-ary heap in IndexedDaryHeap.java) the priority queue is managed, and the operations like decrease key are also implemented. 
  * The program reads graph data from standard input and outputs the shortest distance or indicates if no connection exists between the start and end vertices.
  * PseduoCode Referred From The Book "Introductin to Algorithms" :-
 
@@ -27,7 +27,10 @@
  */
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.io.*;
+import java.nio.file.*;
 
 public class DijkstraAlgo {
 
@@ -74,135 +77,140 @@ public class DijkstraAlgo {
     }
 
     /**
-     * HeapElement is an element in the priority queue (min-heap) with a vertex and
-     * its current shortest distance.
+     * compressed sparse row (CSR) form of the graph, the out edges of vertex u sit in
+     * targets[] and weights[] between offsets[u] and offsets[u + 1], so there is no
+     * object per edge and the relaxation loop walks plain int arrays.
      */
-    static class HeapElement {
-        int vertex; // for identifying the vertex
-        int distance; // this distance is the current known shortest distance from the source vertex
-
-        HeapElement(int vertex, int distance) {
-            this.vertex = vertex;
-            this.distance = distance;
-        }
-    }
-
-    /**
-     * Here we have the most important part of the code, the MinHeap implementation
-     * that supports decrease key
-     */
-    static class MinHeap {
-        List<HeapElement> heap; // The heap array
-        int[] vertexPosition; // Maps vertex to its position in the heap for quick access
+    static class CsrGraph {
+        int vertexCount; // total number of vertices in the graph
+        int edgeCount; // total number of directed edges
+        int[] offsets; // offsets[u] is the first slot of u's edges, has vertexCount + 1 entries
+        int[] targets; // destination vertex of every edge slot
+        int[] weights; // weight of every edge slot
 
-        /**
-         * the min-heap is initiliasied with a capacity based on number of the vertices
-         * the parameter size is the Number of vertices to fit in the heap
-         */
-        MinHeap(int size) {
-            heap = new ArrayList<>(size);
-            vertexPosition = new int[size];
-            Arrays.fill(vertexPosition, -1); // Initialize all positions to -1 (not in heap)
+        CsrGraph(int vertexCount, int[] offsets, int[] targets, int[] weights) {
+            this.vertexCount = vertexCount;
+            this.edgeCount = offsets[vertexCount];
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
         }
 
         /**
-         * Checking if the heap is empty.
-         * returns true if heap is empty, false otherwise
+         * the csr arrays are built in two passes over the edge list, the first pass
+         * counts the out degree of every vertex and turns the counts into offsets,
+         * the second pass drops each edge into the next free slot of its source.
+         * edges of one vertex keep their input order, same as the adjacency list
          */
-        boolean isEmpty() {
-            return heap.isEmpty();
-        }
+        static CsrGraph fromEdgeList(int vertexCount, int[] from, int[] to, int[] weight, int edgeCount) {
+            int[] offsets = new int[vertexCount + 1];
+            for (int i = 0; i < edgeCount; i++) {
+                offsets[from[i] + 1]++;
+            }
+            for (int v = 0; v < vertexCount; v++) {
+                offsets[v + 1] += offsets[v];
+            }
 
-        /**
-         * to insert a new HeapElement into the heap
-         */
-        void insert(HeapElement element) {
-            heap.add(element);
-            int currentIndex = heap.size() - 1;
-            vertexPosition[element.vertex] = currentIndex;
-            heapUp(currentIndex);
+            int[] targets = new int[edgeCount];
+            int[] weights = new int[edgeCount];
+            int[] next = Arrays.copyOf(offsets, vertexCount); // next free slot per vertex
+            for (int i = 0; i < edgeCount; i++) {
+                int slot = next[from[i]]++;
+                targets[slot] = to[i];
+                weights[slot] = weight[i];
+            }
+            return new CsrGraph(vertexCount, offsets, targets, weights);
         }
 
         /**
-         * to extract the HeapElement with the minimum distance from the heap
+         * flattening an existing adjacency list graph into csr form
          */
-        HeapElement extractMin() {
-            if (heap.isEmpty())
-                return null;
-
-            HeapElement minElement = heap.get(0);
-            HeapElement lastElement = heap.remove(heap.size() - 1);
-            vertexPosition[minElement.vertex] = -1;
-
-            if (!heap.isEmpty()) {
-                heap.set(0, lastElement);
-                vertexPosition[lastElement.vertex] = 0;
-                heapDown(0);
+        static CsrGraph fromGraph(Graph graph) {
+            int n = graph.vertexCount;
+            int[] offsets = new int[n + 1];
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] = offsets[v] + graph.adjacencyList.get(v).size();
+            }
+            int[] targets = new int[offsets[n]];
+            int[] weights = new int[offsets[n]];
+            for (int v = 0; v < n; v++) {
+                int slot = offsets[v];
+                for (DirectedEdge edge : graph.adjacencyList.get(v)) {
+                    targets[slot] = edge.destination;
+                    weights[slot] = edge.weight;
+                    slot++;
+                }
             }
-            return minElement;
+            return new CsrGraph(n, offsets, targets, weights);
         }
 
         /**
-         * the decrease key here plays an important role in decreasing the distance of a
-         * given vertex and it then adjusts the position of vertex in the heap
-         * parameter 'vertex' is the vertex whose distance is to be decreased
-         * parameter newDistance is the new smaller distance value
+         * the outgoing edges of a mapped binary graph file, a plain file is copied over in three
+         * bulk reads and a varint file is decoded vertex by vertex
          */
-        void decreaseKey(int vertex, int newDistance) {
-            int index = vertexPosition[vertex];
-            if (index == -1)
-                return; // if the vertex is not present in the heap it will return
-            heap.get(index).distance = newDistance;
-            heapUp(index);
+        static CsrGraph fromBinary(BinaryGraph graph) {
+            int n = graph.vertexCount;
+            int[] offsets = new int[n + 1];
+            int[] targets = new int[graph.edgeCount];
+            int[] weights = new int[graph.edgeCount];
+            if (!graph.compressed) {
+                graph.forwardOffsets.get(0, offsets);
+                graph.forwardTargets.get(0, targets);
+                graph.forwardWeights.get(0, weights);
+            } else {
+                BinaryGraph.Cursor cursor = new BinaryGraph.Cursor(graph, false);
+                int slot = 0;
+                for (int u = 0; u < n; u++) {
+                    offsets[u] = slot;
+                    cursor.start(u);
+                    while (cursor.next()) {
+                        targets[slot] = cursor.vertex;
+                        weights[slot] = (int) cursor.weight;
+                        slot++;
+                    }
+                }
+                offsets[n] = slot;
+            }
+            return new CsrGraph(n, offsets, targets, weights);
         }
 
         /**
-         * it moves the element up at the given index to maintain the property of heap
-         * the parameter 'index' is the index of the element to heapify up
+         * the same graph with every edge turned around, searching it from a vertex t gives
+         * the distances from all vertices to t
          */
-        void heapUp(int index) {
-            while (index > 0) {
-                int parent = (index - 1) / 2;
-                if (heap.get(parent).distance > heap.get(index).distance) {
-                    swap(parent, index);
-                    index = parent;
-                } else {
-                    break;
+        CsrGraph reverse() {
+            int[] from = new int[edgeCount];
+            for (int u = 0; u < vertexCount; u++) {
+                for (int slot = offsets[u]; slot < offsets[u + 1]; slot++) {
+                    from[slot] = u;
                 }
             }
+            return fromEdgeList(vertexCount, targets, from, weights, edgeCount);
         }
 
         /**
-         * it moves the element down at the given index to maintain the property of heap
-         * the parameter 'index' is the index of the element to heapify up
+         * true when a distance in this graph might not fit into an int. a sum the search compares
+         * is a shortest path to some vertex plus one edge leaving it, which are all different
+         * edges, at most vertexCount of them. so no sum is larger than the vertexCount heaviest
+         * weights together (all weights when there are fewer edges), and that has to stay below
+         * Integer.MAX_VALUE because that value stands for "not reached" in the int searches.
+         * the heaviest weights are only sorted out when the sum of all weights is too large
          */
-        void heapDown(int index) {
-            int smallest = index;
-            int leftChild = 2 * index + 1;
-            int rightChild = 2 * index + 2;
-
-            if (leftChild < heap.size() && heap.get(leftChild).distance < heap.get(smallest).distance) {
-                smallest = leftChild;
+        boolean needsLongDistances() {
+            long total = 0;
+            for (int slot = 0; slot < edgeCount; slot++) {
+                total += weights[slot];
             }
-            if (rightChild < heap.size() && heap.get(rightChild).distance < heap.get(smallest).distance) {
-                smallest = rightChild;
+            if (total < Integer.MAX_VALUE || edgeCount <= vertexCount) {
+                return total >= Integer.MAX_VALUE;
             }
-            if (smallest != index) {
-                swap(smallest, index);
-                heapDown(smallest);
+            int[] sorted = Arrays.copyOf(weights, edgeCount);
+            Arrays.parallelSort(sorted);
+            long heaviest = 0;
+            for (int slot = edgeCount - 1; slot >= edgeCount - vertexCount && heaviest < Integer.MAX_VALUE; slot--) {
+                heaviest += sorted[slot];
             }
-        }
-
-        /**
-         * here we swap two elements in the heap and updates their positions.
-         */
-        void swap(int i, int j) {
-            HeapElement temp = heap.get(i);
-            heap.set(i, heap.get(j));
-            heap.set(j, temp);
-
-            vertexPosition[heap.get(i).vertex] = i;
-            vertexPosition[heap.get(j).vertex] = j;
+            return heaviest >= Integer.MAX_VALUE;
         }
     }
 
@@ -212,7 +220,7 @@ public class DijkstraAlgo {
      * in the beggining
      */
     static class DijkstraAlgorithm {
-        Graph graph; // given graph on which we have to test the algo
+        CsrGraph graph; // given graph on which we have to test the algo, in csr form
         int source; // starting vertex
         int target; // destination vertex
         int[] distances; // initialised an array to store shortest distances from source
@@ -222,6 +230,13 @@ public class DijkstraAlgo {
          * the algorithm begins with the graph, source, and target vertices.
          */
         DijkstraAlgorithm(Graph graph, int source, int target) {
+            this(CsrGraph.fromGraph(graph), source, target);
+        }
+
+        /**
+         * the algorithm runs directly on the csr arrays
+         */
+        DijkstraAlgorithm(CsrGraph graph, int source, int target) {
             this.graph = graph;
             this.source = source;
             this.target = target;
@@ -237,19 +252,22 @@ public class DijkstraAlgo {
         void findShortestPath() {
             distances[source] = 0; // Distance from source to itself is zero
 
-            MinHeap priorityQueue = new MinHeap(graph.vertexCount);
+            IndexedDaryHeap priorityQueue = new IndexedDaryHeap(graph.vertexCount);
             for (int vertex = 0; vertex < graph.vertexCount; vertex++) {
-                priorityQueue.insert(new HeapElement(vertex, distances[vertex]));
+                priorityQueue.insert(vertex, distances[vertex]);
             }
 
+            int[] offsets = graph.offsets;
+            int[] targets = graph.targets;
+            int[] weights = graph.weights;
+
             while (!priorityQueue.isEmpty()) {
-                HeapElement current = priorityQueue.extractMin();
-                int c = current.vertex;
+                int c = priorityQueue.extractMin();
 
-                // iteratinng through all adjacent vertices of c
-                for (DirectedEdge edge : graph.adjacencyList.get(c)) {
-                    int e = edge.destination;
-                    int weight = edge.weight;
+                // iteratinng through all adjacent vertices of c, they are contiguous in the csr arrays
+                for (int slot = offsets[c]; slot < offsets[c + 1]; slot++) {
+                    int e = targets[slot];
+                    int weight = weights[slot];
 
                     // the relaxation step where we update the distance if a shorter path is found
                     if (distances[c] != Integer.MAX_VALUE && distances[c] + weight < distances[e]) {
@@ -261,6 +279,42 @@ public class DijkstraAlgo {
             }
         }
 
+        /**
+         * the lazy mode for a single source to target query, a vertex is only inserted
+         * into the heap when it is reached for the first time, and the search stops as
+         * soon as the target is extracted (settled), so vertices that are farther away
+         * than the target never enter the heap at all
+         */
+        void findShortestPathToTarget() {
+            distances[source] = 0; // Distance from source to itself is zero
+
+            IndexedDaryHeap priorityQueue = new IndexedDaryHeap(graph.vertexCount);
+            priorityQueue.insert(source, 0);
+
+            int[] offsets = graph.offsets;
+            int[] targets = graph.targets;
+            int[] weights = graph.weights;
+
+            while (!priorityQueue.isEmpty()) {
+                int c = priorityQueue.extractMin();
+                if (c == target) {
+                    break; // the target is settled, its distance and predecessors are final
+                }
+
+                for (int slot = offsets[c]; slot < offsets[c + 1]; slot++) {
+                    int e = targets[slot];
+                    int weight = weights[slot];
+
+                    // relaxation, a vertex seen for the first time is inserted and otherwise its key is decreased
+                    if (distances[c] + weight < distances[e]) {
+                        distances[e] = distances[c] + weight;
+                        predecessors[e] = c;
+                        priorityQueue.insertOrDecrease(e, distances[e]);
+                    }
+                }
+            }
+        }
+
         /**
          * here we get the shortest distance from the source to the target vertex
          * it either returns the shortest distance or gives Integer.MAX_VALUE if no path
@@ -289,14 +343,483 @@ public class DijkstraAlgo {
         }
     }
 
+    /**
+     * a heuristic gives a lower bound on the remaining distance from vertex v to the target,
+     * it is what turns dijkstra into A*
+     */
+    interface Heuristic {
+        int estimate(int v, int target);
+    }
+
+    /**
+     * straight line distance between the coordinates of two vertices, multiplied by 'scale'
+     * (edge weight units per coordinate unit). it is only a lower bound if no edge is shorter
+     * than scale times the distance between its end points, which checkAdmissible can verify
+     */
+    static class EuclideanHeuristic implements Heuristic {
+        double[] x; // x coordinate of every vertex
+        double[] y; // y coordinate of every vertex
+        double scale; // converts a coordinate distance into edge weight units
+
+        EuclideanHeuristic(double[] x, double[] y, double scale) {
+            this.x = x;
+            this.y = y;
+            this.scale = scale;
+        }
+
+        public int estimate(int v, int target) {
+            double dx = x[v] - x[target];
+            double dy = y[v] - y[target];
+            return (int) Math.floor(scale * Math.sqrt(dx * dx + dy * dy)); // rounding down keeps it a lower bound
+        }
+
+        /**
+         * reads the coordinates side file, every line is "<vertex> <x> <y>" and every vertex
+         * of the graph needs exactly one line
+         */
+        static EuclideanHeuristic load(String fileName, int vertexCount, double scale) throws IOException {
+            double[] x = new double[vertexCount];
+            double[] y = new double[vertexCount];
+            boolean[] seen = new boolean[vertexCount];
+            try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    String[] parts = line.split("\\s+");
+                    if (parts.length != 3) {
+                        throw new IOException("coordinate line must be <vertex> <x> <y>: " + line);
+                    }
+                    int v = Integer.parseInt(parts[0]);
+                    if (v < 0 || v >= vertexCount) {
+                        throw new IOException("coordinate vertex must be between 0 and " + (vertexCount - 1));
+                    }
+                    x[v] = Double.parseDouble(parts[1]);
+                    y[v] = Double.parseDouble(parts[2]);
+                    seen[v] = true;
+                }
+            }
+            for (int v = 0; v < vertexCount; v++) {
+                if (!seen[v]) {
+                    throw new IOException("missing coordinates for vertex " + v);
+                }
+            }
+            return new EuclideanHeuristic(x, y, scale);
+        }
+    }
+
+    /**
+     * A* search, it is dijkstra with the heap ordered by distance + estimate of the rest,
+     * so vertices pointing away from the target are settled late or never. it reuses the
+     * heap, the distances and the predecessors of DijkstraAlgorithm so getShortestDistance()
+     * and getPath() give the same answers
+     */
+    static class AStarAlgorithm extends DijkstraAlgorithm {
+        Heuristic heuristic; // lower bound on the distance to the target
+
+        AStarAlgorithm(CsrGraph graph, int source, int target, Heuristic heuristic) {
+            super(graph, source, target);
+            this.heuristic = heuristic;
+        }
+
+        /**
+         * searching until the target is extracted, a vertex that is reached again with a
+         * smaller distance after it was extracted is put back into the heap, so the result is
+         * exact for any admissible heuristic and not only for consistent ones
+         */
+        @Override
+        void findShortestPathToTarget() {
+            distances[source] = 0;
+
+            IndexedDaryHeap priorityQueue = new IndexedDaryHeap(graph.vertexCount);
+            priorityQueue.insert(source, heuristic.estimate(source, target));
+
+            int[] offsets = graph.offsets;
+            int[] targets = graph.targets;
+            int[] weights = graph.weights;
+
+            while (!priorityQueue.isEmpty()) {
+                int c = priorityQueue.extractMin();
+                if (c == target) {
+                    break;
+                }
+
+                for (int slot = offsets[c]; slot < offsets[c + 1]; slot++) {
+                    int e = targets[slot];
+                    int weight = weights[slot];
+
+                    if (distances[c] + weight < distances[e]) {
+                        distances[e] = distances[c] + weight;
+                        predecessors[e] = c;
+                        priorityQueue.insertOrDecrease(e, distances[e] + heuristic.estimate(e, target));
+                    }
+                }
+            }
+        }
+
+        @Override
+        void findShortestPath() {
+            findShortestPathToTarget();
+        }
+
+        /**
+         * the debug check, it computes the exact distance of every vertex to the target with a
+         * dijkstra on the reversed graph and returns the first vertex whose estimate is larger,
+         * or -1 if the heuristic never overestimates
+         */
+        static int checkAdmissible(CsrGraph graph, Heuristic heuristic, int target) {
+            DijkstraAlgorithm toTarget = new DijkstraAlgorithm(graph.reverse(), target, target);
+            toTarget.findShortestPath();
+            for (int v = 0; v < graph.vertexCount; v++) {
+                int exact = toTarget.distances[v];
+                if (exact != Integer.MAX_VALUE && heuristic.estimate(v, target) > exact) {
+                    return v;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * dijkstra for answering many queries on the same graph one after another. the arrays and
+     * the heap are allocated once, and instead of refilling distances with Arrays.fill before
+     * every query each vertex carries the generation (query number) in which its distance was
+     * last written, a distance from an older generation counts as infinity. so a query only
+     * costs as much as the part of the graph it touches
+     */
+    static class ReusableDijkstra {
+        CsrGraph graph; // the graph all queries run on
+        int[] distances; // distance of a vertex, only valid when visited[v] == generation
+        int[] predecessors; // predecessor of a vertex, only valid when visited[v] == generation
+        int[] visited; // generation in which the vertex was last reached
+        int generation; // number of the current query
+        IndexedDaryHeap priorityQueue; // reused, it is emptied with clear() between queries
+        int source; // start vertex of the last query
+        int target; // end vertex of the last query
+
+        ReusableDijkstra(CsrGraph graph) {
+            this.graph = graph;
+            distances = new int[graph.vertexCount];
+            predecessors = new int[graph.vertexCount];
+            visited = new int[graph.vertexCount];
+            generation = 0;
+            priorityQueue = new IndexedDaryHeap(graph.vertexCount);
+        }
+
+        /**
+         * the lazy point to point search of DijkstraAlgorithm.findShortestPathToTarget on the
+         * reused state, returns the distance or Integer.MAX_VALUE if the target is not reachable
+         */
+        int query(int source, int target) {
+            this.source = source;
+            this.target = target;
+            if (generation == Integer.MAX_VALUE) {
+                // only after ~2 billion queries the stamps have to be wiped once
+                Arrays.fill(visited, 0);
+                generation = 0;
+            }
+            generation++;
+            priorityQueue.clear();
+
+            int[] offsets = graph.offsets;
+            int[] targets = graph.targets;
+            int[] weights = graph.weights;
+
+            distances[source] = 0;
+            predecessors[source] = -1;
+            visited[source] = generation;
+            priorityQueue.insert(source, 0);
+
+            while (!priorityQueue.isEmpty()) {
+                int c = priorityQueue.extractMin();
+                if (c == target) {
+                    return distances[c];
+                }
+
+                for (int slot = offsets[c]; slot < offsets[c + 1]; slot++) {
+                    int e = targets[slot];
+                    int candidate = distances[c] + weights[slot];
+
+                    // a vertex not visited in this generation has distance infinity
+                    if (visited[e] != generation || candidate < distances[e]) {
+                        distances[e] = candidate;
+                        predecessors[e] = c;
+                        visited[e] = generation;
+                        priorityQueue.insertOrDecrease(e, candidate);
+                    }
+                }
+            }
+            return Integer.MAX_VALUE;
+        }
+
+        /**
+         * the shortest path of the last query, same as DijkstraAlgorithm.getPath()
+         */
+        List<Integer> getPath() {
+            List<Integer> path = new ArrayList<>();
+            if (visited[target] != generation) {
+                return path;
+            }
+            for (int at = target; at != -1; at = predecessors[at]) {
+                path.add(at);
+            }
+            Collections.reverse(path);
+            return path;
+        }
+    }
+
+    /**
+     * the ReusableDijkstra search with long distances, for graphs whose distances do not fit into
+     * an int (see CsrGraph.needsLongDistances). the weights stay int, only the sums are long, and
+     * it is a class of its own so the int searches keep working on int arrays and an int heap
+     */
+    static class LongDistanceDijkstra {
+        CsrGraph graph; // the graph all queries run on
+        long[] distances; // distance of a vertex, only valid when visited[v] == generation
+        int[] predecessors; // predecessor of a vertex, only valid when visited[v] == generation
+        int[] visited; // generation in which the vertex was last reached
+        int generation; // number of the current query
+        LongIndexedDaryHeap priorityQueue; // reused, it is emptied with clear() between queries
+        int target; // end vertex of the last query
+
+        LongDistanceDijkstra(CsrGraph graph) {
+            this.graph = graph;
+            distances = new long[graph.vertexCount];
+            predecessors = new int[graph.vertexCount];
+            visited = new int[graph.vertexCount];
+            generation = 0;
+            priorityQueue = new LongIndexedDaryHeap(graph.vertexCount);
+        }
+
+        /**
+         * the lazy point to point search, returns the distance or Long.MAX_VALUE if the target is
+         * not reachable
+         */
+        long query(int source, int target) {
+            this.target = target;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(visited, 0);
+                generation = 0;
+            }
+            generation++;
+            priorityQueue.clear();
+
+            int[] offsets = graph.offsets;
+            int[] targets = graph.targets;
+            int[] weights = graph.weights;
+
+            distances[source] = 0;
+            predecessors[source] = -1;
+            visited[source] = generation;
+            priorityQueue.insert(source, 0);
+
+            while (!priorityQueue.isEmpty()) {
+                int c = priorityQueue.extractMin();
+                if (c == target) {
+                    return distances[c];
+                }
+
+                for (int slot = offsets[c]; slot < offsets[c + 1]; slot++) {
+                    int e = targets[slot];
+                    long candidate = distances[c] + weights[slot];
+
+                    if (visited[e] != generation || candidate < distances[e]) {
+                        distances[e] = candidate;
+                        predecessors[e] = c;
+                        visited[e] = generation;
+                        priorityQueue.insertOrDecrease(e, candidate);
+                    }
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        /**
+         * the shortest path of the last query, same as DijkstraAlgorithm.getPath()
+         */
+        List<Integer> getPath() {
+            List<Integer> path = new ArrayList<>();
+            if (visited[target] != generation) {
+                return path;
+            }
+            for (int at = target; at != -1; at = predecessors[at]) {
+                path.add(at);
+            }
+            Collections.reverse(path);
+            return path;
+        }
+    }
+
+    /**
+     * runs many independent queries on several threads. the graph is shared read-only by all
+     * workers, and every worker thread keeps its own ReusableDijkstra (heap, distance and stamp
+     * arrays) in a thread-local, so the arrays are allocated once per thread and never shared.
+     * graphs whose distances do not fit into an int go through runLong(), where every worker
+     * keeps a LongDistanceDijkstra the same way.
+     * the workers take small chunks of the query list from a shared counter, which keeps them
+     * busy until the end even when some queries are much more expensive than others
+     */
+    static class ParallelQueryExecutor implements AutoCloseable {
+        static final int INVALID = -1; // result of a query whose start or end is not a vertex
+
+        CsrGraph graph; // the shared, read-only graph
+        int threads; // number of worker threads
+        ExecutorService pool; // the workers
+        ThreadLocal<ReusableDijkstra> engines; // search state of each worker thread
+        ThreadLocal<LongDistanceDijkstra> longEngines; // the same for runLong()
+
+        ParallelQueryExecutor(CsrGraph graph, int threads) {
+            this.graph = graph;
+            this.threads = threads;
+            pool = Executors.newFixedThreadPool(threads);
+            engines = ThreadLocal.withInitial(() -> new ReusableDijkstra(graph));
+            longEngines = ThreadLocal.withInitial(() -> new LongDistanceDijkstra(graph));
+        }
+
+        /**
+         * answers the queries sources[i] -> targets[i] for i < count, result i belongs to query i
+         * whatever thread ran it. a result is the distance, Integer.MAX_VALUE when not connected,
+         * or INVALID when a vertex is out of range
+         */
+        int[] run(int[] sources, int[] targets, int count) throws InterruptedException, ExecutionException {
+            int[] results = new int[count];
+            runChunks(sources, targets, count, () -> {
+                ReusableDijkstra dijkstra = engines.get();
+                return (i, s, t) -> results[i] = valid(s, t) ? dijkstra.query(s, t) : INVALID;
+            });
+            return results;
+        }
+
+        /**
+         * run() with long distances, not connected is Long.MAX_VALUE
+         */
+        long[] runLong(int[] sources, int[] targets, int count) throws InterruptedException, ExecutionException {
+            long[] results = new long[count];
+            runChunks(sources, targets, count, () -> {
+                LongDistanceDijkstra dijkstra = longEngines.get();
+                return (i, s, t) -> results[i] = valid(s, t) ? dijkstra.query(s, t) : INVALID;
+            });
+            return results;
+        }
+
+        boolean valid(int s, int t) {
+            return s >= 0 && s < graph.vertexCount && t >= 0 && t < graph.vertexCount;
+        }
+
+        /**
+         * one query, i is its index in the query list
+         */
+        interface QueryTask {
+            void answer(int i, int s, int t);
+        }
+
+        /**
+         * lets every worker take chunks of the query list and answer them with the task that
+         * newTask makes for it, newTask runs once on each worker thread
+         */
+        private void runChunks(int[] sources, int[] targets, int count, Callable<QueryTask> newTask)
+                throws InterruptedException, ExecutionException {
+            int chunk = Math.max(1, Math.min(1024, count / (threads * 16)));
+            AtomicInteger next = new AtomicInteger();
+
+            List<Future<?>> workers = new ArrayList<>();
+            for (int w = 0; w < threads; w++) {
+                workers.add(pool.submit(() -> {
+                    QueryTask task = newTask.call();
+                    int start;
+                    while ((start = next.getAndAdd(chunk)) < count) {
+                        int end = Math.min(start + chunk, count);
+                        for (int i = start; i < end; i++) {
+                            task.answer(i, sources[i], targets[i]);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(); // waits, and rethrows anything a worker threw
+            }
+        }
+
+        public void close() {
+            pool.shutdown();
+        }
+    }
+
     /**
      * the main method
      * Accepts start and end vertices as command-line arguments and reads the graph
      */
     public static void main(String[] args) {
-        // ensuring that exactly two command-line arguments are provided
-        if (args.length != 2) {
-            System.out.println("Usage: java DijkstraSolver <start> <end>");
+        // batch mode reads the graph once and answers a whole list of queries
+        if (args.length >= 1 && args[0].equals("--batch")) {
+            runBatch(args);
+            return;
+        }
+
+        // ensuring that the start and end vertices are provided, the rest are options
+        if (args.length < 2) {
+            System.out.println(USAGE);
+            return;
+        }
+
+        // the optional A* and contraction hierarchy settings
+        String coordinatesFile = null;
+        double scale = 1.0;
+        boolean debug = false;
+        String hierarchyFile = null;
+        String graphFile = null; // binary graph file to map instead of reading standard input
+        String inputFile = null; // text edge list file to parse in parallel instead of standard input
+        int delta = 0; // delta-stepping is used when this is set
+        int threads = 0; // 0 when not given, one thread for delta-stepping and all cores for parsing
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--coords") && i + 1 < args.length) {
+                coordinatesFile = args[++i];
+            } else if (args[i].equals("--scale") && i + 1 < args.length) {
+                try {
+                    scale = Double.parseDouble(args[++i]);
+                } catch (NumberFormatException e) {
+                    System.out.println("scale must be a number");
+                    return;
+                }
+            } else if (args[i].equals("--debug")) {
+                debug = true;
+            } else if (args[i].equals("--ch") && i + 1 < args.length) {
+                hierarchyFile = args[++i];
+            } else if (args[i].equals("--graph") && i + 1 < args.length) {
+                graphFile = args[++i];
+            } else if (args[i].equals("--input") && i + 1 < args.length) {
+                inputFile = args[++i];
+            } else if ((args[i].equals("--delta") || args[i].equals("--threads")) && i + 1 < args.length) {
+                int value;
+                try {
+                    value = Integer.parseInt(args[i + 1]);
+                } catch (NumberFormatException e) {
+                    value = 0;
+                }
+                if (value < 1) {
+                    System.out.println(args[i].substring(2) + " must be a positive integer");
+                    return;
+                }
+                if (args[i].equals("--delta")) {
+                    delta = value;
+                } else {
+                    threads = value;
+                }
+                i++;
+            } else {
+                System.out.println(USAGE);
+                return;
+            }
+        }
+        if ((coordinatesFile != null ? 1 : 0) + (hierarchyFile != null ? 1 : 0) + (delta > 0 ? 1 : 0) > 1) {
+            System.out.println("only one of --coords, --ch and --delta can be used");
+            return;
+        }
+        if (graphFile != null && inputFile != null) {
+            System.out.println("only one of --graph and --input can be used");
             return;
         }
 
@@ -311,95 +834,366 @@ public class DijkstraAlgo {
         }
 
         try {
-            Scanner scanner = new Scanner(System.in);
-
-            // reading the number of vertices and edges from input
-            if (!scanner.hasNextInt()) {
-                System.out.println("please enter number of vertices");
-                scanner.close();
+            // a saved contraction hierarchy is mapped and answers the query without reading the graph
+            if (hierarchyFile != null && Files.exists(Paths.get(hierarchyFile))) {
+                ContractionHierarchy hierarchy = ContractionHierarchy.load(hierarchyFile);
+                if (!checkVertices(startVertex, endVertex, hierarchy.vertexCount)) {
+                    return;
+                }
+                printDistance(new ContractionHierarchy.Query(hierarchy).run(startVertex, endVertex));
                 return;
             }
-            int numberOfVertices = scanner.nextInt();
 
-            if (!scanner.hasNextInt()) {
-                System.out.println("please enter number of edges");
-                scanner.close();
+            CsrGraph graph;
+            if (graphFile != null) {
+                graph = loadGraph(graphFile);
+            } else if (inputFile != null) {
+                graph = ParallelEdgeListParser.parse(inputFile, parsingThreads(threads));
+            } else {
+                EdgeListReader reader = new EdgeListReader(System.in);
+                graph = readGraph(reader);
+                reader.close();
+            }
+            if (graph == null) {
                 return;
             }
-            int numberOfEdges = scanner.nextInt();
+            int numberOfVertices = graph.vertexCount;
 
-            // initiating the graph
-            Graph graph = new Graph(numberOfVertices);
+            // validation check for vertices
+            if (!checkVertices(startVertex, endVertex, numberOfVertices)) {
+                return;
+            }
 
-            // reading each edge and adding to graph
-            for (int i = 0; i < numberOfEdges; i++) {
-                if (!scanner.hasNextInt()) {
-                    System.out.println("edge start vertex expected");
-                    scanner.close();
+            // distances that could overflow an int are computed by the long variant of the search
+            if (graph.needsLongDistances()) {
+                if (coordinatesFile != null || hierarchyFile != null || delta > 0) {
+                    System.out.println("the distances in this graph do not fit into an int, which --coords, --ch and"
+                            + " --delta need");
                     return;
                 }
-                int from = scanner.nextInt();
+                printDistance(new LongDistanceDijkstra(graph).query(startVertex, endVertex));
+                return;
+            }
 
-                if (!scanner.hasNextInt()) {
-                    System.out.println("edge end vertex expected");
-                    scanner.close();
-                    return;
-                }
-                int to = scanner.nextInt();
+            // without a saved hierarchy one is built from the graph and saved for the next runs
+            if (hierarchyFile != null) {
+                ContractionHierarchy hierarchy = ContractionHierarchy.build(graph);
+                hierarchy.save(hierarchyFile);
+                printDistance(new ContractionHierarchy.Query(hierarchy).run(startVertex, endVertex));
+                return;
+            }
 
-                if (!scanner.hasNextInt()) {
-                    System.out.println("edge weight expected");
-                    scanner.close();
-                    return;
+            // delta-stepping computes the distances to all vertices, possibly on several threads
+            if (delta > 0) {
+                try (DeltaStepping deltaStepping = new DeltaStepping(graph, delta, Math.max(threads, 1))) {
+                    printDistance(deltaStepping.run(startVertex)[endVertex]);
                 }
-                int weight = scanner.nextInt();
+                return;
+            }
 
-                // Validate vertex numbers
-                if (from < 0 || from >= numberOfVertices || to < 0 || to >= numberOfVertices) {
-                    System.out.println("vertex numbers must be between 0 and " + (numberOfVertices - 1));
-                    scanner.close();
-                    return;
+            // executing the algo, A* when a coordinates file is given and plain dijkstra otherwise
+            DijkstraAlgorithm dijkstra;
+            if (coordinatesFile != null) {
+                Heuristic heuristic = EuclideanHeuristic.load(coordinatesFile, numberOfVertices, scale);
+                if (debug) {
+                    int violation = AStarAlgorithm.checkAdmissible(graph, heuristic, endVertex);
+                    if (violation != -1) {
+                        System.out.println("heuristic overestimates the distance from vertex " + violation
+                                + " to " + endVertex);
+                        return;
+                    }
                 }
+                dijkstra = new AStarAlgorithm(graph, startVertex, endVertex, heuristic);
+            } else {
+                dijkstra = new DijkstraAlgorithm(graph, startVertex, endVertex);
+            }
+            dijkstra.findShortestPathToTarget();
+            printDistance(dijkstra.getShortestDistance());
+            // printing the shortest path completely
+            /*
+             * List<Integer> path = dijkstra.getPath();
+             * for(int vertex : path){
+             * System.out.print(vertex + " ");
+             * }
+             * System.out.println();
+             */
+
+        } catch (Exception e) {
+            System.out.println("Error processing input: " + e.getMessage());
+        }
+    }
+
+    static final String USAGE = "Usage: java DijkstraSolver <start> <end> [--graph <binary graph file> | --input <edge list file>]"
+            + " [--coords <file> [--scale <s>] [--debug]] [--ch <hierarchy file>] [--delta <d>] [--threads <n>]\n"
+            + "       java DijkstraSolver --batch [<query file>] [--graph <binary graph file> | --input <edge list file>]"
+            + " [--threads <n>]";
+
+    /**
+     * threads used to parse an --input file, all cores unless --threads was given
+     */
+    static int parsingThreads(int threads) {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
 
-                if (weight <= 0) {
-                    System.out.println("edge weight must be a positive integer");
-                    scanner.close();
+    /**
+     * batch mode, the graph is read once from standard input (or mapped from --graph, or parsed
+     * from --input on --threads threads, all cores by default) and then every "<start> <end>"
+     * pair from the query file, or from the rest of standard input, is answered on its own line,
+     * with the same output as a single query. with one thread the answers are streamed as the
+     * queries are read, with more threads all queries are read first and then run by a
+     * ParallelQueryExecutor, the answers still come out in input order
+     */
+    static void runBatch(String[] args) {
+        String queryFile = null;
+        String graphFile = null;
+        String inputFile = null;
+        int threads = 0; // 0 when not given, one thread for the queries and all cores for parsing
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--graph") && i + 1 < args.length) {
+                graphFile = args[++i];
+            } else if (args[i].equals("--input") && i + 1 < args.length) {
+                inputFile = args[++i];
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                try {
+                    threads = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    threads = 0;
+                }
+                if (threads < 1) {
+                    System.out.println("number of threads must be a positive integer");
                     return;
                 }
-
-                graph.addDirectedEdge(from, to, weight);
+            } else if (args[i].startsWith("--") || queryFile != null) {
+                System.out.println(USAGE);
+                return;
+            } else {
+                queryFile = args[i];
             }
+        }
+        if (graphFile != null && inputFile != null) {
+            System.out.println("only one of --graph and --input can be used");
+            return;
+        }
 
-            scanner.close();
-
-            // validation check for vertices
-            if (startVertex < 0 || startVertex >= numberOfVertices || endVertex < 0 || endVertex >= numberOfVertices) {
-                System.out.println("start or end vertex must be between 0 and " + (numberOfVertices - 1));
+        try {
+            EdgeListReader reader = new EdgeListReader(System.in);
+            CsrGraph graph = graphFile != null ? loadGraph(graphFile)
+                    : inputFile != null ? ParallelEdgeListParser.parse(inputFile, parsingThreads(threads)) : readGraph(reader);
+            if (graph == null) {
+                reader.close();
                 return;
             }
+            EdgeListReader queries = queryFile == null ? reader : EdgeListReader.open(queryFile);
+            PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
 
-            // executing the algo
-            DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph, startVertex, endVertex);
-            dijkstra.findShortestPath();
-            int shortestDistance = dijkstra.getShortestDistance();
+            // a graph whose distances do not fit into an int is answered by the long searches
+            boolean longDistances = graph.needsLongDistances();
+            LongDistanceDijkstra longDijkstra = threads <= 1 && longDistances ? new LongDistanceDijkstra(graph) : null;
+            ReusableDijkstra dijkstra = threads <= 1 && !longDistances ? new ReusableDijkstra(graph) : null;
+            int[] sources = new int[16];
+            int[] targets = new int[16];
+            int count = 0;
+            String error = null;
+            while (queries.hasNextInt()) {
+                int startVertex = queries.nextInt();
+                if (!queries.hasNextInt()) {
+                    error = "query end vertex expected";
+                    break;
+                }
+                int endVertex = queries.nextInt();
 
+                if (longDijkstra != null) {
+                    boolean valid = startVertex >= 0 && startVertex < graph.vertexCount && endVertex >= 0
+                            && endVertex < graph.vertexCount;
+                    out.println(formatAnswer(valid ? longDijkstra.query(startVertex, endVertex)
+                            : ParallelQueryExecutor.INVALID, graph.vertexCount));
+                } else if (dijkstra != null) {
+                    boolean valid = startVertex >= 0 && startVertex < graph.vertexCount && endVertex >= 0
+                            && endVertex < graph.vertexCount;
+                    out.println(formatAnswer(valid ? dijkstra.query(startVertex, endVertex)
+                            : ParallelQueryExecutor.INVALID, graph.vertexCount));
+                } else {
+                    if (count == sources.length) {
+                        sources = Arrays.copyOf(sources, count * 2);
+                        targets = Arrays.copyOf(targets, count * 2);
+                    }
+                    sources[count] = startVertex;
+                    targets[count] = endVertex;
+                    count++;
+                }
+            }
+            if (error == null && queries.hasNext() && !queries.hasNextInt()) {
+                error = "query start vertex expected";
+            }
 
-            if (shortestDistance == Integer.MAX_VALUE) {
-                System.out.println("not connected");
-            } else {
-                System.out.println(shortestDistance);
-                // printing the shortest path completely
-                /*
-                 * List<Integer> path = dijkstra.getPath();
-                 * for(int vertex : path){
-                 * System.out.print(vertex + " ");
-                 * }
-                 * System.out.println();
-                 */
+            if (dijkstra == null && longDijkstra == null) {
+                try (ParallelQueryExecutor executor = new ParallelQueryExecutor(graph, threads)) {
+                    if (longDistances) {
+                        long[] results = executor.runLong(sources, targets, count);
+                        for (int i = 0; i < count; i++) {
+                            out.println(formatAnswer(results[i], graph.vertexCount));
+                        }
+                    } else {
+                        int[] results = executor.run(sources, targets, count);
+                        for (int i = 0; i < count; i++) {
+                            out.println(formatAnswer(results[i], graph.vertexCount));
+                        }
+                    }
+                }
+            }
+            if (error != null) {
+                out.println(error);
             }
 
+            out.flush();
+            queries.close();
+            reader.close();
         } catch (Exception e) {
             System.out.println("Error processing input: " + e.getMessage());
         }
     }
+
+    /**
+     * the output line of one batch query
+     */
+    static String formatAnswer(int result, int numberOfVertices) {
+        if (result == ParallelQueryExecutor.INVALID) {
+            return "start or end vertex must be between 0 and " + (numberOfVertices - 1);
+        }
+        return formatDistance(result);
+    }
+
+    /**
+     * the output line of one batch query with a long distance
+     */
+    static String formatAnswer(long result, int numberOfVertices) {
+        if (result == ParallelQueryExecutor.INVALID) {
+            return "start or end vertex must be between 0 and " + (numberOfVertices - 1);
+        }
+        return formatDistance(result);
+    }
+
+    /**
+     * mapping a binary graph file written by BinaryGraph, the weights are checked the same way
+     * as for the text input, if one is not positive (or the file has long weights) the problem is
+     * printed and null is returned
+     */
+    static CsrGraph loadGraph(String fileName) throws IOException {
+        BinaryGraph mapped = BinaryGraph.load(fileName);
+        if (mapped.longWeights) {
+            System.out.println("the weights in " + fileName + " do not fit into an int, only MaxFlow can use it");
+            return null;
+        }
+        CsrGraph graph = CsrGraph.fromBinary(mapped);
+        for (int weight : graph.weights) {
+            if (weight <= 0) {
+                System.out.println("edge weight must be a positive integer");
+                return null;
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * reading the number of vertices and edges and then every edge from the reader into a csr
+     * graph, if the input is invalid the problem is printed and null is returned
+     */
+    static CsrGraph readGraph(EdgeListReader reader) throws IOException {
+        // reading the number of vertices and edges from input
+        if (!reader.hasNextInt()) {
+            System.out.println("please enter number of vertices");
+            return null;
+        }
+        int numberOfVertices = reader.nextInt();
+
+        if (!reader.hasNextInt()) {
+            System.out.println("please enter number of edges");
+            return null;
+        }
+        int numberOfEdges = reader.nextInt();
+
+        // the edges are collected in primitive arrays and turned into a csr graph afterwards
+        int[] edgeFrom = new int[Math.max(numberOfEdges, 0)];
+        int[] edgeTo = new int[Math.max(numberOfEdges, 0)];
+        int[] edgeWeight = new int[Math.max(numberOfEdges, 0)];
+
+        // reading each edge and adding to graph
+        for (int i = 0; i < numberOfEdges; i++) {
+            if (!reader.hasNextInt()) {
+                System.out.println("edge start vertex expected");
+                return null;
+            }
+            int from = reader.nextInt();
+
+            if (!reader.hasNextInt()) {
+                System.out.println("edge end vertex expected");
+                return null;
+            }
+            int to = reader.nextInt();
+
+            if (!reader.hasNextInt()) {
+                System.out.println("edge weight expected");
+                return null;
+            }
+            int weight = reader.nextInt();
+
+            // Validate vertex numbers
+            if (from < 0 || from >= numberOfVertices || to < 0 || to >= numberOfVertices) {
+                System.out.println("vertex numbers must be between 0 and " + (numberOfVertices - 1));
+                return null;
+            }
+
+            if (weight <= 0) {
+                System.out.println("edge weight must be a positive integer");
+                return null;
+            }
+
+            edgeFrom[i] = from;
+            edgeTo[i] = to;
+            edgeWeight[i] = weight;
+        }
+
+        // initiating the graph
+        return CsrGraph.fromEdgeList(Math.max(numberOfVertices, 0), edgeFrom, edgeTo, edgeWeight,
+                Math.max(numberOfEdges, 0));
+    }
+
+    /**
+     * the start and end vertex must both be vertices of the graph
+     */
+    static boolean checkVertices(int startVertex, int endVertex, int numberOfVertices) {
+        if (startVertex < 0 || startVertex >= numberOfVertices || endVertex < 0 || endVertex >= numberOfVertices) {
+            System.out.println("start or end vertex must be between 0 and " + (numberOfVertices - 1));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * printing a distance, or "not connected" for Integer.MAX_VALUE
+     */
+    static void printDistance(int shortestDistance) {
+        System.out.println(formatDistance(shortestDistance));
+    }
+
+    /**
+     * the text printed for a distance, "not connected" for Integer.MAX_VALUE
+     */
+    static String formatDistance(int shortestDistance) {
+        return shortestDistance == Integer.MAX_VALUE ? "not connected" : Integer.toString(shortestDistance);
+    }
+
+    /**
+     * printing a long distance, or "not connected" for Long.MAX_VALUE
+     */
+    static void printDistance(long shortestDistance) {
+        System.out.println(formatDistance(shortestDistance));
+    }
+
+    /**
+     * the text printed for a long distance, "not connected" for Long.MAX_VALUE
+     */
+    static String formatDistance(long shortestDistance) {
+        return shortestDistance == Long.MAX_VALUE ? "not connected" : Long.toString(shortestDistance);
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ *
+ * Title :- Fast reader for the "V E" / "from to weight" edge list inputs
+ *
+ * the graph programs (DijkstraAlgo, ShortestPathFinder, PrimMST, MaxFlow) used java.util.Scanner
+ * with hasNextInt()/nextInt() for every number, and Scanner matches every token against a regular
+ * expression, which is what most of their running time went into on the bigger inputs.
+ * this reader keeps the same hasNextInt()/nextInt() style, so the programs can still print their
+ * own error message for the exact token that is missing, but it reads the input in large byte
+ * blocks and turns the ASCII digits into numbers directly without creating any strings.
+ *
+ * tokens are separated by whitespace like with Scanner. a token is a number if it is an optional
+ * sign followed by decimal digits that fit into a long (hasNextLong) or an int (hasNextInt),
+ * anything else is a token that is not a number and is left in place, exactly like Scanner.
+ */
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+public class EdgeListReader implements Closeable {
+
+    static final int BUFFER_SIZE = 1 << 16; // bytes read from the stream at once
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int length;     // number of valid bytes in the buffer
+    private int position;   // next unread byte in the buffer
+
+    // the token looked at by the last hasNext* call, it stays there until a next* call consumes it
+    private boolean peeked;      // a token has been scanned and not consumed yet
+    private boolean tokenFound;  // false when the input ended before another token
+    private boolean numeric;     // the token is a number that fits into a long
+    private long value;          // the value of a numeric token
+
+    /**
+     * the reader is initialised on any input stream, for example System.in
+     */
+    EdgeListReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * a reader on a file, read through its FileChannel
+     */
+    static EdgeListReader open(String fileName) throws IOException {
+        return new EdgeListReader(Channels.newInputStream(FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)));
+    }
+
+    /**
+     * returns true if there is another token of any kind
+     */
+    boolean hasNext() throws IOException {
+        peek();
+        return tokenFound;
+    }
+
+    /**
+     * returns true if the next token is a number in the int range
+     */
+    boolean hasNextInt() throws IOException {
+        peek();
+        return numeric && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * returns true if the next token is a number in the long range
+     */
+    boolean hasNextLong() throws IOException {
+        peek();
+        return numeric;
+    }
+
+    /**
+     * consumes the next token as an int, it must be one (check with hasNextInt first)
+     */
+    int nextInt() throws IOException {
+        if (!hasNextInt()) {
+            throw new IOException("integer expected");
+        }
+        peeked = false;
+        return (int) value;
+    }
+
+    /**
+     * consumes the next token as a long, it must be one (check with hasNextLong first)
+     */
+    long nextLong() throws IOException {
+        if (!hasNextLong()) {
+            throw new IOException("integer expected");
+        }
+        peeked = false;
+        return value;
+    }
+
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * scans the next token unless one is already waiting, a token can span two buffer fills
+     */
+    private void peek() throws IOException {
+        if (peeked) {
+            return;
+        }
+        peeked = true;
+
+        int b = read();
+        while (b != -1 && b <= ' ') {
+            b = read();
+        }
+        if (b == -1) {
+            tokenFound = false;
+            numeric = false;
+            return;
+        }
+        tokenFound = true;
+
+        boolean negative = false;
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            b = read();
+        }
+
+        // the magnitude is accumulated as a negative number so that Long.MIN_VALUE still fits
+        long result = 0;
+        boolean digits = false;
+        boolean valid = true;
+        while (b != -1 && b > ' ') {
+            if (b >= '0' && b <= '9' && valid) {
+                int digit = b - '0';
+                if (result < (Long.MIN_VALUE + digit) / 10) {
+                    valid = false; // does not fit into a long
+                } else {
+                    result = result * 10 - digit;
+                    digits = true;
+                }
+            } else {
+                valid = false; // the rest of the token is still consumed
+            }
+            b = read();
+        }
+
+        if (valid && digits && (negative || result != Long.MIN_VALUE)) {
+            numeric = true;
+            value = negative ? result : -result;
+        } else {
+            numeric = false;
+        }
+    }
+
+    /**
+     * next byte of the input, or -1 at the end
+     */
+    private int read() throws IOException {
+        if (position == length) {
+            length = in.read(buffer, 0, BUFFER_SIZE);
+            position = 0;
+            if (length <= 0) {
+                length = 0;
+                return -1;
+            }
+        }
+        return buffer[position++] & 0xFF;
+    }
+}
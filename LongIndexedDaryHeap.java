@@ -0,0 +1,202 @@
+/*
+ *
+ * Title :- Indexed d-ary min-heap with long keys
+ *
+ * the priority queue of the long distance searches (LongDistanceDijkstra in DijkstraAlgo, and
+ * MinCostFlow), where distances no longer fit into an int. the keys sit in a long array and the
+ * vertices in a parallel int array, and a position array maps every vertex to its slot, so
+ * insert, extractMin and decreaseKey allocate nothing once the heap is created. the sift
+ * operations are iterative and move a "hole" instead of swapping pairs, and every node has
+ * 'arity' children (4 by default), which keeps the heap shallow and the children of a node next
+ * to each other in memory.
+ *
+ * apart from the key type this is the same code as IndexedDaryHeap, and the two have to be
+ * changed together. they can not share it: a generic key would box every key, and an abstract
+ * base class over the slot logic would put a virtual key compare in the middle of the sift
+ * loops, the hottest code of every search. the int heap also keeps its keys at half the size.
+ */
+
+import java.util.*;
+
+public class LongIndexedDaryHeap {
+
+    static final int DEFAULT_ARITY = 4; // 4 children per node works well for dijkstra and prim
+
+    final int arity;   // number of children of every node
+    long[] keys;       // keys[i] is the key (distance) stored in heap slot i
+    int[] vertices;    // vertices[i] is the vertex stored in heap slot i
+    int[] position;    // position[v] is the heap slot of vertex v, -1 if v is not in the heap
+    int size;          // number of occupied slots
+
+    /**
+     * the heap is initialised for vertices 0 .. capacity - 1 with the default arity
+     */
+    LongIndexedDaryHeap(int capacity) {
+        this(capacity, DEFAULT_ARITY);
+    }
+
+    /**
+     * the heap is initialised for vertices 0 .. capacity - 1 with the given arity
+     */
+    LongIndexedDaryHeap(int capacity, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("heap arity must be at least 2");
+        }
+        this.arity = arity;
+        keys = new long[capacity];
+        vertices = new int[capacity];
+        position = new int[capacity];
+        Arrays.fill(position, -1); // no vertex is in the heap yet
+        size = 0;
+    }
+
+    /**
+     * returns true if heap is empty, false otherwise
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * number of vertices currently in the heap
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * checks whether the vertex is currently in the heap
+     */
+    boolean contains(int vertex) {
+        return position[vertex] != -1;
+    }
+
+    /**
+     * the key that the given vertex currently has in the heap
+     */
+    long keyOf(int vertex) {
+        return keys[position[vertex]];
+    }
+
+    /**
+     * to insert a vertex with the given key into the heap
+     */
+    void insert(int vertex, long key) {
+        siftUp(size++, vertex, key);
+    }
+
+    /**
+     * the smallest key in the heap, the heap must not be empty
+     */
+    long minKey() {
+        return keys[0];
+    }
+
+    /**
+     * the vertex with the smallest key in the heap, the heap must not be empty
+     */
+    int minVertex() {
+        return vertices[0];
+    }
+
+    /**
+     * to extract the vertex with the minimum key from the heap, returns -1 if the heap is empty
+     */
+    int extractMin() {
+        if (size == 0)
+            return -1;
+
+        int minVertex = vertices[0];
+        position[minVertex] = -1;
+        size--;
+        if (size > 0) {
+            // the last element is moved into the hole left at the root and pushed down
+            siftDown(0, vertices[size], keys[size]);
+        }
+        return minVertex;
+    }
+
+    /**
+     * decreasing the key of a vertex that is in the heap and moving it up,
+     * nothing happens if the vertex is not in the heap
+     */
+    void decreaseKey(int vertex, long newKey) {
+        int index = position[vertex];
+        if (index == -1)
+            return;
+        siftUp(index, vertex, newKey);
+    }
+
+    /**
+     * inserts the vertex if it is not in the heap yet, otherwise decreases its key
+     */
+    void insertOrDecrease(int vertex, long key) {
+        if (position[vertex] == -1) {
+            insert(vertex, key);
+        } else {
+            decreaseKey(vertex, key);
+        }
+    }
+
+    /**
+     * empties the heap, only the vertices still inside are touched so a heap can be reused
+     * across many searches without refilling the whole position array
+     */
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            position[vertices[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * places (vertex, key) at the hole 'index' and moves the hole up while the parent is larger
+     */
+    private void siftUp(int index, int vertex, long key) {
+        while (index > 0) {
+            int parent = (index - 1) / arity;
+            long parentKey = keys[parent];
+            if (parentKey <= key) {
+                break;
+            }
+            keys[index] = parentKey;
+            vertices[index] = vertices[parent];
+            position[vertices[index]] = index;
+            index = parent;
+        }
+        keys[index] = key;
+        vertices[index] = vertex;
+        position[vertex] = index;
+    }
+
+    /**
+     * places (vertex, key) at the hole 'index' and moves the hole down while a child is smaller
+     */
+    private void siftDown(int index, int vertex, long key) {
+        while (true) {
+            int firstChild = index * arity + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            int lastChild = Math.min(firstChild + arity, size);
+            int smallest = firstChild;
+            long smallestKey = keys[firstChild];
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (keys[child] < smallestKey) {
+                    smallest = child;
+                    smallestKey = keys[child];
+                }
+            }
+            if (smallestKey >= key) {
+                break;
+            }
+            keys[index] = smallestKey;
+            vertices[index] = vertices[smallest];
+            position[vertices[index]] = index;
+            index = smallest;
+        }
+        keys[index] = key;
+        vertices[index] = vertex;
+        position[vertex] = index;
+    }
+}
@@ -9,57 +9,128 @@
  * in this program we use Edmonds-Karp algorithm to compute the maximum flow in a directed graph
  * it is a variation of the Ford-Fulkerson method
  * this algo uses Breadth-First Search (BFS) to find the shortest paths.
+ * with --engine dinic the flow is computed with Dinic's algorithm instead, which augments along
+ * all shortest paths of one BFS level graph before it builds the next one, and with
+ * --engine push-relabel (or push-relabel-fifo) by the push-relabel algorithm in PushRelabel.java.
+ * --engine capacity-scaling is Edmonds-Karp that pushes the large capacities first, for networks
+ * whose capacities range over many orders of magnitude.
+ * --engine mincost reads a cost per unit of flow as a fourth column of every edge and finds the
+ * cheapest of the maximum flows (MinCostFlow.java), it prints the cost after the flow.
+ * the flow stays in the residual graph after a solve, so when a few capacities change the new max
+ * flow is found by repairing and augmenting the old one (--changes) instead of starting from zero.
+ * the residual graph also holds a minimum cut, the vertices the source still reaches, which
+ * --mincut prints together with the cut edges.
 
  */
 
  import java.util.*;
+ import java.io.*;
 
  public class MaxFlow {
 
+    // num of vertices in the graph
+    int n;
+
+    // the residual graph as a flat arc array, every edge is the pair of arcs e (forward, even) and
+    // e ^ 1 (reverse), so the reverse of an arc is found without a lookup. the arcs of a vertex are
+    // chained through next[] starting at head[], and the arrays grow as edges are added
+    int[] head;     // first arc of every vertex, -1 if it has none
+    int[] next;     // next arc of the same vertex, -1 at the end
+    int[] to;       // the dest vertex of every arc
+    long[] cap;     // remaining (residual) capacity of every arc
+    long[] cost;    // cost per unit of flow of every arc, the reverse arc has the negated cost,
+                    // null until the first edge with a cost is added
+    int arcCount;   // number of arcs, twice the number of edges
+
+    // the bfs state shared by all engines, allocated once so a bfs allocates nothing
+    int[] queue;    // every vertex enters a bfs at most once, so V slots are enough and it never wraps
+    int[] parent;   // the previous node in the path, -1 when not visited
+    int[] parentArc; // the arc used to reach each node
+
+    // the last solve, kept so the flow can be updated after capacity changes
+    String engine;  // engine of the last solve, null before the first one
+    int source;
+    int sink;
+    long flowValue; // value of the flow that is in the residual graph now
+    long flowCost;  // its cost, for the mincost engine
+    int[] reached;  // marks of the last bfs from the source that did not reach the sink (-1 = not
+                    // reached), the source side of the min cut for free. null when it is out of date
+
     /**
-     * edge in the graph, this edge points to a vertex and contains the capacity remaining on it,
-     * it also has the index of reverse edge in the adj list of the vertex it is pointing to
+     * a minimum cut, the source side as a bitset and the cut edges (the edges from the source side
+     * to the sink side, all of them saturated) in parallel primitive arrays
      */
-    static class Edge {
-        int to;         // the dest vertex
-        long capacity;  // capacity of edge
-        int rev;        // index of rev edge
-
-        public Edge(int to, long capacity, int rev) {
-            this.to = to;
-            this.capacity = capacity;
-            this.rev = rev;
-        }
+    static class MinCut {
+        BitSet sourceSide;  // the vertices the source can still reach in the residual graph
+        int size;           // number of cut edges
+        int[] edge;         // edge number, edges are numbered in input order from 0
+        int[] from;
+        int[] to;
+        long[] capacity;    // they add up to the max flow
     }
 
-    // num of vertices in the graph
-    int n;
-    // adj list represting the graph
-    List<List<Edge>> graph;
-
     /**
      * initialising a graph with the vertices given
      */
     public MaxFlow(int n) {
+        this(n, 16);
+    }
+
+    /**
+     * a graph with room for 'edges' edges before the arc arrays have to grow
+     */
+    public MaxFlow(int n, int edges) {
         this.n = n;
-        graph = new ArrayList<>(n);
-        // initialising adjacency lists for each vertex
-        for (int i = 0; i < n; i++) {
-            graph.add(new ArrayList<>());
-        }
+        head = new int[n];
+        Arrays.fill(head, -1);
+        int arcs = Math.max(2 * edges, 2);
+        next = new int[arcs];
+        to = new int[arcs];
+        cap = new long[arcs];
+        queue = new int[Math.max(n, 1)];
+        parent = new int[n];
+        parentArc = new int[n];
     }
 
     /**
      * here we add a directed edge to the graph with given capacity
-     * and also a reverse edge with zero capacity for the residual graph
+     * and also a reverse edge with zero capacity for the residual graph,
+     * the forward arc is returned, its reverse is that number ^ 1
      */
-    public void addEdge(int from, int to, long capacity) {
-        // Add forward edge
-        Edge forward = new Edge(to, capacity, graph.get(to).size());
-        graph.get(from).add(forward);
+    public int addEdge(int from, int to, long capacity) {
+        if (arcCount == this.to.length) {
+            next = Arrays.copyOf(next, 2 * arcCount);
+            this.to = Arrays.copyOf(this.to, 2 * arcCount);
+            cap = Arrays.copyOf(cap, 2 * arcCount);
+            if (cost != null) {
+                cost = Arrays.copyOf(cost, 2 * arcCount);
+            }
+        }
+        int forward = arcCount;
+        addArc(from, to, capacity);
         // Add reverse edge with 0 capacity
-        Edge reverse = new Edge(from, 0, graph.get(from).size() - 1);
-        graph.get(to).add(reverse);
+        addArc(to, from, 0);
+        return forward;
+    }
+
+    /**
+     * an edge that also costs 'cost' per unit of flow, for the min-cost engine
+     */
+    public int addEdge(int from, int to, long capacity, long cost) {
+        if (this.cost == null) {
+            this.cost = new long[this.to.length];
+        }
+        int forward = addEdge(from, to, capacity);
+        this.cost[forward] = cost;
+        this.cost[forward ^ 1] = -cost;
+        return forward;
+    }
+
+    private void addArc(int from, int target, long capacity) {
+        to[arcCount] = target;
+        cap[arcCount] = capacity;
+        next[arcCount] = head[from];
+        head[from] = arcCount++;
     }
 
     /**
@@ -69,65 +140,198 @@
     public long maxFlow(int s, int t) {
         long totalFlow = 0;
 
-        int[] parent = new int[n];          // the previous node in path
-        Edge[] parentEdge = new Edge[n];    // the edge used to reach each node
-
         // finding the paths as long as possible using the bfs
-        while (bfs(s, t, parent, parentEdge)) {
-            // in this process we will find the minimum residual capacity along the path found by BFS
-            long pathFlow = Long.MAX_VALUE;
-            int current = t;
-            while (current != s) {
-                Edge edge = parentEdge[current];
-                pathFlow = Math.min(pathFlow, edge.capacity);
-                current = parent[current];
-            }
-
+        while (bfs(s, t)) {
             // this computed path flow will be added to the totalflow
-            totalFlow += pathFlow;
+            totalFlow += augmentPath(s, t, Long.MAX_VALUE);
+        }
 
-            // updating the residual caps of edges and reverse edges
-            current = t;
-            while (current != s) {
-                Edge edge = parentEdge[current];
-                // decreasing the capacity of the forward edge
-                edge.capacity -= pathFlow;
-                // increasing the capacity of the reverse edge
-                Edge reverseEdge = graph.get(edge.to).get(edge.rev);
-                reverseEdge.capacity += pathFlow;
-                current = parent[current];
+        // the last bfs did not reach t, so it marked exactly the vertices s still reaches
+        reached = parent;
+        return totalFlow;
+    }
+
+    /**
+     * sends flow along the path the last bfs found, as much as the path allows but at most
+     * 'limit', and returns the amount
+     */
+    private long augmentPath(int s, int t, long limit) {
+        // in this process we will find the minimum residual capacity along the path found by BFS
+        long pathFlow = limit;
+        for (int current = t; current != s; current = parent[current]) {
+            pathFlow = Math.min(pathFlow, cap[parentArc[current]]);
+        }
+
+        // updating the residual caps of arcs and their reverse arcs
+        for (int current = t; current != s; current = parent[current]) {
+            cap[parentArc[current]] -= pathFlow;
+            cap[parentArc[current] ^ 1] += pathFlow;
+        }
+        return pathFlow;
+    }
+
+    /**
+     * Edmonds-Karp with capacity scaling, for capacities that span many orders of magnitude. a
+     * phase only uses residual arcs with at least delta capacity, delta starts at the largest power
+     * of two not above the largest capacity and is halved when no such path is left. every path
+     * of a phase carries at least delta, so a phase ends after at most 2E augmentations and there
+     * are about log2(largest capacity) phases, instead of one augmentation per unit of the
+     * smallest bottleneck
+     */
+    public long capacityScaling(int s, int t) {
+        long maxCapacity = 0;
+        for (int e = 0; e < arcCount; e++) {
+            maxCapacity = Math.max(maxCapacity, cap[e]);
+        }
+        long totalFlow = 0;
+        for (long delta = Long.highestOneBit(maxCapacity); delta > 0; delta >>= 1) {
+            while (bfs(s, t, delta)) {
+                totalFlow += augmentPath(s, t, Long.MAX_VALUE);
             }
         }
+        if (maxCapacity > 0) {
+            reached = parent; // the phase with delta 1 ended with an ordinary bfs that did not reach t
+        }
+        return totalFlow;
+    }
+
+    /**
+     * Dinic's algorithm on the same residual graph. every phase labels the vertices with their bfs
+     * level from s, and then sends a blocking flow through the level graph (the edges that go from
+     * one level to the next) before the next phase. there are at most V phases, so this is
+     * O(V^2 E) instead of the O(V E^2) of Edmonds-Karp, and much faster in practice
+     */
+    public long dinic(int s, int t) {
+        if (s == t) {
+            return 0; // like maxFlow, there is no path from a vertex to itself
+        }
+        long totalFlow = 0;
 
+        int[] level = new int[n];       // bfs level of every vertex, -1 when not reached
+        int[] current = new int[n];     // current arc, the next arc of a vertex to try in this phase
+        while (buildLevels(s, t, level)) {
+            System.arraycopy(head, 0, current, 0, n);
+            totalFlow += blockingFlow(s, t, level, current);
+        }
+        reached = level; // the failed bfs went through everything s reaches
         return totalFlow;
     }
 
     /**
-     * bfs for finding the shortest path 
+     * bfs from s that fills in the level of every vertex, returns true if t was reached.
+     * vertices behind the level of t can not be on a shortest path, so they are not expanded
      */
-    private boolean bfs(int s, int t, int[] parent, Edge[] parentEdge) {
+    private boolean buildLevels(int s, int t, int[] level) {
+        Arrays.fill(level, -1);
+        level[s] = 0;
+        int queueHead = 0;
+        int queueTail = 0;
+        queue[queueTail++] = s;
+        while (queueHead < queueTail) {
+            int u = queue[queueHead++];
+            if (level[t] != -1 && level[u] >= level[t]) {
+                break;
+            }
+            for (int e = head[u]; e != -1; e = next[e]) {
+                if (level[to[e]] == -1 && cap[e] > 0) {
+                    level[to[e]] = level[u] + 1;
+                    queue[queueTail++] = to[e];
+                }
+            }
+        }
+        return level[t] != -1;
+    }
+
+    /**
+     * the blocking flow of one phase, found by a dfs that keeps its path on explicit stacks
+     * instead of recursing (the paths can be as long as the graph). the dfs advances along the
+     * current arc of each vertex, an arc that is saturated or leads into a dead end is skipped for
+     * the rest of the phase, so every edge is given up at most once per phase. after an
+     * augmentation the dfs backs up to the tail of the first saturated edge and goes on from there
+     */
+    private long blockingFlow(int s, int t, int[] level, int[] current) {
+        long flow = 0;
+        int[] path = parentArc;     // arcs of the current dfs path, the bfs arrays are free during the dfs
+        int[] tails = parent;       // tails[i] is the vertex path[i] leaves from
+        int depth = 0;
+        int u = s;
+        while (true) {
+            if (u == t) {
+                long pathFlow = Long.MAX_VALUE;
+                for (int i = 0; i < depth; i++) {
+                    pathFlow = Math.min(pathFlow, cap[path[i]]);
+                }
+                int firstSaturated = -1;
+                for (int i = 0; i < depth; i++) {
+                    cap[path[i]] -= pathFlow;
+                    cap[path[i] ^ 1] += pathFlow;
+                    if (cap[path[i]] == 0 && firstSaturated == -1) {
+                        firstSaturated = i;
+                    }
+                }
+                flow += pathFlow;
+                depth = firstSaturated;
+                u = tails[depth];
+                continue;
+            }
+
+            // advancing the current arc of u to the next arc that stays in the level graph
+            int e = current[u];
+            while (e != -1 && (cap[e] == 0 || level[to[e]] != level[u] + 1)) {
+                e = next[e];
+            }
+            current[u] = e;
+
+            if (e != -1) {
+                tails[depth] = u;
+                path[depth++] = e;
+                u = to[e];
+            } else {
+                // u is a dead end for this phase, the dfs backs up and its parent skips the edge
+                if (depth == 0) {
+                    break;
+                }
+                u = tails[--depth];
+                current[u] = next[current[u]];
+            }
+        }
+        return flow;
+    }
+
+    /**
+     * bfs for finding the shortest path, it fills in parent[] and parentArc[]
+     */
+    boolean bfs(int s, int t) {
+        return bfs(s, t, 1);
+    }
+
+    /**
+     * the bfs over the arcs with at least 'threshold' residual capacity
+     */
+    boolean bfs(int s, int t, long threshold) {
    
         Arrays.fill(parent, -1);
-        Arrays.fill(parentEdge, null);
 
         // queue for bfs
-        Queue<Integer> queue = new LinkedList<>();
-        queue.add(s);
+        int queueHead = 0;
+        int queueTail = 0;
+        queue[queueTail++] = s;
         parent[s] = s; // the source is marked visited by setting its parent to itself
 
-        while (!queue.isEmpty()) {
-            int u = queue.poll();
+        while (queueHead < queueTail) {
+            int u = queue[queueHead++];
 
-            // iterating over all the edges
-            for (Edge edge : graph.get(u)) {
-                // if the vertex is non-visited and the edge has remaining capacity
-                if (parent[edge.to] == -1 && edge.capacity > 0) {
-                    parent[edge.to] = u;          // set parent of the vertex
-                    parentEdge[edge.to] = edge;    // store edge used to reach it
-                    queue.add(edge.to);            // and add the vertex to the queue
+            // iterating over all the arcs
+            for (int e = head[u]; e != -1; e = next[e]) {
+                int v = to[e];
+                // if the vertex is non-visited and the arc has enough remaining capacity
+                if (parent[v] == -1 && cap[e] >= threshold) {
+                    parent[v] = u;            // set parent of the vertex
+                    parentArc[v] = e;         // store arc used to reach it
+                    queue[queueTail++] = v;   // and add the vertex to the queue
 
                     // if reached the dest vertex, stop search
-                    if (edge.to == t) {
+                    if (v == t) {
                         return true;
                     }
                 }
@@ -138,63 +342,403 @@
         return false;
     }
 
-    public static void main(String[] args) {
+    /**
+     * the flow engines that can be picked with --engine
+     */
+    static final List<String> ENGINES = List.of("edmonds-karp", "dinic", "push-relabel", "push-relabel-fifo",
+            "capacity-scaling", "mincost");
+
+    /**
+     * runs the chosen engine from s to t and remembers the solve for reoptimize()
+     */
+    long maxFlow(String engine, int s, int t) {
+        this.engine = engine;
+        source = s;
+        sink = t;
+        flowValue = augmentWith(engine, s, t);
+        return flowValue;
+    }
+
+    /**
+     * all engines work on the residual capacities, so on a graph that already carries a flow they
+     * return how much more can be sent on top of it
+     */
+    private long augmentWith(String engine, int s, int t) {
+        reached = null;
+        if (engine.startsWith("push-relabel")) {
+            // highest label selection unless the fifo variant is asked for
+            return new PushRelabel(this, !engine.equals("push-relabel-fifo")).run(s, t);
+        }
+        if (engine.equals("capacity-scaling")) {
+            return capacityScaling(s, t);
+        }
+        if (engine.equals("mincost")) {
+            MinCostFlow minCost = new MinCostFlow(this).run(s, t);
+            flowCost = minCost.totalCost;
+            return minCost.flow;
+        }
+        return engine.equals("dinic") ? dinic(s, t) : maxFlow(s, t);
+    }
+
+    /**
+     * the capacity of an edge, given by the arc addEdge returned for it
+     */
+    long capacity(int edge) {
+        return cap[edge] + cap[edge ^ 1];
+    }
+
+    /**
+     * the flow on an edge, it is the residual capacity of the reverse arc
+     */
+    long flow(int edge) {
+        return cap[edge ^ 1];
+    }
+
+    /**
+     * more capacity on an edge keeps the flow valid, reoptimize() then only has to augment
+     */
+    void increaseCapacity(int edge, long amount) {
+        checkEdge(edge, amount);
+        reached = null;
+        cap[edge] += amount;
+    }
+
+    /**
+     * less capacity on an edge. if the edge carries more flow than its new capacity the extra
+     * flow is taken off the edge, which leaves an excess at its start and a deficit at its end.
+     * the excess is first rerouted to the end of the edge around it. what can not be rerouted
+     * has to leave the network, it is sent the same way once more with a temporary arc from the
+     * source to the sink, and whatever that arc ends up carrying is flow the network no longer
+     * carries. the flow stays valid (and smaller) until reoptimize() augments it again. a min-cost
+     * flow is not repaired, the rerouting ignores the costs
+     */
+    void decreaseCapacity(int edge, long amount) {
+        checkEdge(edge, amount);
+        reached = null;
+        if (amount > capacity(edge)) {
+            throw new IllegalArgumentException("capacity of edge " + edge / 2 + " can not become negative");
+        }
+        if (amount > cap[edge]) {
+            // checked before anything changes, so a refused decrease leaves the network as it was
+            if (engine == null) {
+                throw new IllegalStateException("the flow can only be repaired after maxFlow(engine, s, t)");
+            }
+            if (engine.equals("mincost")) {
+                // rerouting the extra flow ignores the costs, the flow would no longer be the cheapest
+                throw new IllegalStateException("the flow of a min-cost flow can not be repaired, it has to be solved again");
+            }
+        }
+        cap[edge] -= amount;
+        if (cap[edge] < 0) {
+            long extra = -cap[edge];
+            cap[edge] = 0;
+            cap[edge ^ 1] -= extra;
+            int u = to[edge ^ 1];
+            int v = to[edge];
+            extra -= augment(u, v, extra);
+            if (extra > 0) {
+                // the paths back to the source and from the sink can cross each other, so they are
+                // found together as paths u -> source -> sink -> v over the temporary arc
+                int shortcut = addEdge(source, sink, extra);
+                augment(u, v, extra);
+                flowValue -= flow(shortcut);
+                head[source] = next[shortcut];
+                head[sink] = next[shortcut ^ 1];
+                arcCount -= 2;
+            }
+        }
+    }
+
+    /**
+     * sets the capacity of an edge to a new value
+     */
+    void setCapacity(int edge, long capacity) {
+        long old = capacity(edge);
+        if (capacity >= old) {
+            increaseCapacity(edge, capacity - old);
+        } else {
+            decreaseCapacity(edge, old - capacity);
+        }
+    }
+
+    /**
+     * the max flow after capacity changes, found by augmenting the current flow with the engine
+     * of the last solve instead of starting again from zero
+     */
+    long reoptimize() {
+        if (engine == null) {
+            throw new IllegalStateException("no max flow has been computed yet");
+        }
+        if (engine.equals("mincost")) {
+            // the changed capacities can leave cycles of negative cost in the residual graph
+            throw new IllegalStateException("a min-cost flow can not be reoptimized, it has to be solved again");
+        }
+        flowValue += augmentWith(engine, source, sink);
+        return flowValue;
+    }
+
+    /**
+     * the minimum cut of the last solve. the marks of the bfs that ended Edmonds-Karp or Dinic are
+     * reused, only after push-relabel or capacity changes one more bfs from the source is needed
+     */
+    MinCut minCut() {
+        if (engine == null) {
+            throw new IllegalStateException("no max flow has been computed yet");
+        }
+        if (reached == null) {
+            if (bfs(source, sink)) {
+                throw new IllegalStateException("the flow is not maximal, reoptimize() first");
+            }
+            reached = parent;
+        }
+        MinCut cut = new MinCut();
+        cut.sourceSide = new BitSet(n);
+        for (int v = 0; v < n; v++) {
+            if (reached[v] != -1) {
+                cut.sourceSide.set(v);
+            }
+        }
+        for (int e = 0; e < arcCount; e += 2) {
+            int u = to[e ^ 1];
+            if (cut.sourceSide.get(u) && !cut.sourceSide.get(to[e]) && capacity(e) > 0) {
+                cut.size++;
+            }
+        }
+        cut.edge = new int[cut.size];
+        cut.from = new int[cut.size];
+        cut.to = new int[cut.size];
+        cut.capacity = new long[cut.size];
+        int k = 0;
+        for (int e = 0; e < arcCount; e += 2) {
+            int u = to[e ^ 1];
+            if (cut.sourceSide.get(u) && !cut.sourceSide.get(to[e]) && capacity(e) > 0) {
+                cut.edge[k] = e / 2;
+                cut.from[k] = u;
+                cut.to[k] = to[e];
+                cut.capacity[k] = capacity(e);
+                k++;
+            }
+        }
+        return cut;
+    }
+
+    /**
+     * streams the min cut out, the source side vertices one per line and then every cut edge as
+     * "from to capacity"
+     */
+    static void printMinCut(MinCut cut, PrintStream stream) {
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(stream), 1 << 16));
+        out.println("Source side " + cut.sourceSide.cardinality());
+        for (int v = cut.sourceSide.nextSetBit(0); v >= 0; v = cut.sourceSide.nextSetBit(v + 1)) {
+            out.println(v);
+        }
+        out.println("Cut edges " + cut.size);
+        for (int i = 0; i < cut.size; i++) {
+            out.println(cut.from[i] + " " + cut.to[i] + " " + cut.capacity[i]);
+        }
+        out.flush();
+    }
+
+    private void checkEdge(int edge, long amount) {
+        if (edge < 0 || edge >= arcCount || (edge & 1) != 0) {
+            throw new IllegalArgumentException("not an edge: " + edge);
+        }
+        if (amount < 0) {
+            throw new IllegalArgumentException("capacity change must not be negative");
+        }
+    }
+
+    /**
+     * sends up to 'limit' units from s to t along shortest residual paths (the Edmonds-Karp step),
+     * returns how much was sent
+     */
+    private long augment(int s, int t, long limit) {
+        long sent = 0;
+        while (sent < limit && s != t && bfs(s, t)) {
+            sent += augmentPath(s, t, limit - sent);
+        }
+        return sent;
+    }
+
+    /**
+     * reads "<edge number> <new capacity>" lines, the edges are numbered in input order from 0,
+     * and prints the max flow after every change
+     */
+    static void applyChanges(MaxFlow maxFlowSolver, String fileName) throws IOException {
+        try (EdgeListReader changes = EdgeListReader.open(fileName)) {
+            int edges = maxFlowSolver.arcCount / 2;
+            while (changes.hasNextInt()) {
+                int edge = changes.nextInt();
+                if (!changes.hasNextLong()) {
+                    System.err.println("new capacity expected");
+                    return;
+                }
+                long capacity = changes.nextLong();
+                if (edge < 0 || edge >= edges) {
+                    System.err.println("edge number must be between 0 and " + (edges - 1));
+                    return;
+                }
+                if (capacity < 0) {
+                    System.err.println("capacity must not be negative");
+                    return;
+                }
+                maxFlowSolver.setCapacity(2 * edge, capacity);
+                System.out.println("Max flow " + maxFlowSolver.reoptimize());
+            }
+            if (changes.hasNext()) {
+                System.err.println("edge number expected");
+            }
+        }
+    }
+
+    static final String USAGE = "Usage: java MaxFlow <source> <dest>"
+            + " [--engine edmonds-karp|dinic|push-relabel|push-relabel-fifo|capacity-scaling|mincost]"
+            + " [--graph <binary graph file>]"
+            + " [--changes <file of edge number and new capacity lines>] [--mincut]";
 
-        if (args.length != 2) {
-            System.err.println("Usage: java MaxFlow <source> <dest>");
+    public static void main(String[] args) throws IOException {
+
+        if (args.length < 2) {
+            System.err.println(USAGE);
+            return;
+        }
+        String engine = "edmonds-karp";
+        String graphFile = null;
+        String changesFile = null;
+        boolean printCut = false;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("--engine") && i + 1 < args.length && ENGINES.contains(args[i + 1])) {
+                engine = args[++i];
+            } else if (args[i].equals("--graph") && i + 1 < args.length) {
+                graphFile = args[++i];
+            } else if (args[i].equals("--changes") && i + 1 < args.length) {
+                changesFile = args[++i];
+            } else if (args[i].equals("--mincut")) {
+                printCut = true;
+            } else {
+                System.err.println(USAGE);
+                return;
+            }
+        }
+
+        boolean costs = engine.equals("mincost");
+        if (costs && (graphFile != null || changesFile != null)) {
+            System.err.println("--engine mincost reads the costs from the text input and can not be used with"
+                    + " --graph or --changes");
             return;
         }
 
         int source = Integer.parseInt(args[0]);
         int dest = Integer.parseInt(args[1]);
 
-        Scanner scanner = new Scanner(System.in);
+        MaxFlow maxFlowSolver;
+        if (graphFile != null) {
+            // the residual graph needs its own capacities, so the mapped edges are copied into it
+            BinaryGraph mapped;
+            try {
+                mapped = BinaryGraph.load(graphFile);
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+                return;
+            }
+            maxFlowSolver = new MaxFlow(mapped.vertexCount, mapped.edgeCount);
+            BinaryGraph.Cursor cursor = new BinaryGraph.Cursor(mapped, false);
+            for (int u = 0; u < mapped.vertexCount; u++) {
+                cursor.start(u);
+                while (cursor.next()) {
+                    maxFlowSolver.addEdge(u, cursor.vertex, cursor.weight);
+                }
+            }
+        } else {
+            maxFlowSolver = readGraph(new EdgeListReader(System.in), costs);
+            if (maxFlowSolver == null) {
+                return;
+            }
+        }
 
-        if (!scanner.hasNextInt()) {
-            System.err.println("please enter number of vertices");
+        long maxFlow;
+        try {
+            maxFlow = maxFlowSolver.maxFlow(engine, source, dest);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage()); // a cycle of negative cost
             return;
         }
-        int numVertices = scanner.nextInt();
 
-        if (!scanner.hasNextInt()) {
+        System.out.println("Max flow " + maxFlow);
+        if (costs) {
+            System.out.println("Min cost " + maxFlowSolver.flowCost);
+        }
+
+        if (changesFile != null) {
+            applyChanges(maxFlowSolver, changesFile);
+        }
+        // the cut of the final flow, after the changes if there were any
+        if (printCut) {
+            printMinCut(maxFlowSolver.minCut(), System.out);
+        }
+    }
+
+    /**
+     * reads the graph from the reader, with a cost after the capacity of every edge if 'costs' is
+     * set. if the input is invalid the problem is printed and null is returned
+     */
+    static MaxFlow readGraph(EdgeListReader reader, boolean costs) throws IOException {
+
+        if (!reader.hasNextInt()) {
+            System.err.println("please enter number of vertices");
+            return null;
+        }
+        int numVertices = reader.nextInt();
+
+        if (!reader.hasNextInt()) {
             System.err.println("please enter number of edges");
-            return;
+            return null;
         }
-        int numEdges = scanner.nextInt();
+        int numEdges = reader.nextInt();
 
-        MaxFlow maxFlowSolver = new MaxFlow(numVertices);
+        MaxFlow maxFlowSolver = new MaxFlow(numVertices, Math.max(numEdges, 0));
 
         for (int i = 0; i < numEdges; i++) {
-            if (!scanner.hasNextInt()) {
+            if (!reader.hasNextInt()) {
                 System.err.println("edge start vertex expected");
-                return;
+                return null;
             }
-            int from = scanner.nextInt();
+            int from = reader.nextInt();
 
-            if (!scanner.hasNextInt()) {
+            if (!reader.hasNextInt()) {
                 System.err.println("edge end vertex expected");
-                return;
+                return null;
             }
-            int to = scanner.nextInt();
+            int to = reader.nextInt();
 
-            if (!scanner.hasNextLong()) {
+            if (!reader.hasNextLong()) {
                 System.err.println("edge capacity expected");
-                return;
+                return null;
+            }
+            long capacity = reader.nextLong();
+
+            long cost = 0;
+            if (costs) {
+                if (!reader.hasNextLong()) {
+                    System.err.println("edge cost expected");
+                    return null;
+                }
+                cost = reader.nextLong();
             }
-            long capacity = scanner.nextLong();
 
             if (from < 0 || from >= numVertices || to < 0 || to >= numVertices) {
                 System.err.println("vertex index in edge " + from + " -> " + to);
-                return;
+                return null;
             }
 
-            maxFlowSolver.addEdge(from, to, capacity);
+            if (costs) {
+                maxFlowSolver.addEdge(from, to, capacity, cost);
+            } else {
+                maxFlowSolver.addEdge(from, to, capacity);
+            }
         }
 
-        long maxFlow = maxFlowSolver.maxFlow(source, dest);
-
-        System.out.println("Max flow " + maxFlow);
-
-        scanner.close();
+        reader.close();
+        return maxFlowSolver;
     }
 }
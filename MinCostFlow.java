@@ -0,0 +1,163 @@
+/*
+ *
+ * Title :- Min-cost max-flow for MaxFlow
+ *
+ * every edge also has a cost per unit of flow, and among all maximum flows this finds the one
+ * with the smallest total cost. it is the successive shortest path algorithm: the flow is always
+ * augmented along the cheapest residual path from the source to the sink, until there is none.
+ *
+ * the residual graph has negative costs (a reverse arc gives the cost of its edge back), which
+ * plain dijkstra can not handle. so every vertex carries a potential, and dijkstra runs on the
+ * reduced costs cost(u, v) + potential(u) - potential(v), which are never negative when the
+ * potentials are the distances of the previous search (Johnson's reweighting). the first
+ * potentials are zero, or come from one bellman-ford pass when the input has negative costs.
+ *
+ * dijkstra stops as soon as the sink is settled, vertices that were not settled then get the
+ * distance of the sink added to their potential, which keeps every reduced cost non-negative.
+ * the priority queue is the primitive LongIndexedDaryHeap, the search state is reused between
+ * the augmentations.
+ */
+
+import java.util.*;
+
+public class MinCostFlow {
+
+    static final long INFINITY = Long.MAX_VALUE / 4; // larger than any distance, and safe to add to
+
+    MaxFlow network;    // the residual graph, the flow is left in its arcs
+    int n;
+    int[] head;         // the arc arrays of the network
+    int[] next;
+    int[] to;
+    long[] cap;
+    long[] cost;        // cost of every arc, the reverse arc has the negated cost
+
+    long[] potential;   // johnson potential of every vertex
+    long[] distance;    // reduced distance from the source in the current search
+    int[] seen;         // search in which a vertex got its distance
+    int[] settled;      // search in which a vertex was settled
+    int search;         // number of the current search
+    LongIndexedDaryHeap heap;
+
+    long flow;          // results of run(), the flow that was added
+    long totalCost;     // and its cost
+
+    MinCostFlow(MaxFlow network) {
+        this.network = network;
+        n = network.n;
+        head = network.head;
+        next = network.next;
+        to = network.to;
+        cap = network.cap;
+        cost = network.cost != null ? network.cost : new long[cap.length];
+        potential = new long[n];
+        distance = new long[n];
+        seen = new int[n];
+        settled = new int[n];
+        heap = new LongIndexedDaryHeap(n);
+    }
+
+    /**
+     * sends the maximum flow from s to t at the smallest cost, afterwards flow and totalCost hold
+     * the result. throws IllegalArgumentException if the source reaches a cycle of negative cost
+     */
+    MinCostFlow run(int s, int t) {
+        if (s == t) {
+            return this;
+        }
+        initialPotentials(s);
+        int[] parent = network.parent;
+        int[] parentArc = network.parentArc;
+        while (shortestPath(s, t, parent, parentArc)) {
+            long pathFlow = Long.MAX_VALUE;
+            long pathCost = 0;
+            for (int v = t; v != s; v = parent[v]) {
+                pathFlow = Math.min(pathFlow, cap[parentArc[v]]);
+                pathCost += cost[parentArc[v]];
+            }
+            for (int v = t; v != s; v = parent[v]) {
+                cap[parentArc[v]] -= pathFlow;
+                cap[parentArc[v] ^ 1] += pathFlow;
+            }
+            flow += pathFlow;
+            totalCost += pathFlow * pathCost;
+        }
+        return this;
+    }
+
+    /**
+     * zero when no residual arc has a negative cost, otherwise the bellman-ford distances from s.
+     * vertices s does not reach keep zero, no residual arc leads to them
+     */
+    private void initialPotentials(int s) {
+        boolean negative = false;
+        for (int e = 0; e < network.arcCount && !negative; e++) {
+            negative = cap[e] > 0 && cost[e] < 0;
+        }
+        if (!negative) {
+            return;
+        }
+        Arrays.fill(distance, INFINITY);
+        distance[s] = 0;
+        boolean changed = true;
+        for (int round = 0; round < n && changed; round++) {
+            changed = false;
+            for (int e = 0; e < network.arcCount; e++) {
+                int u = to[e ^ 1];
+                if (cap[e] > 0 && distance[u] != INFINITY && distance[u] + cost[e] < distance[to[e]]) {
+                    distance[to[e]] = distance[u] + cost[e];
+                    changed = true;
+                }
+            }
+        }
+        if (changed) {
+            throw new IllegalArgumentException("the network has a cycle of negative cost");
+        }
+        for (int v = 0; v < n; v++) {
+            potential[v] = distance[v] == INFINITY ? 0 : distance[v];
+        }
+    }
+
+    /**
+     * dijkstra on the reduced costs from s until t is settled, the path is left in parent[] and
+     * parentArc[] and the potentials are updated. returns false when t can not be reached
+     */
+    private boolean shortestPath(int s, int t, int[] parent, int[] parentArc) {
+        search++;
+        heap.clear();
+        distance[s] = 0;
+        seen[s] = search;
+        heap.insert(s, 0);
+        long sinkDistance = -1;
+        while (!heap.isEmpty()) {
+            long d = heap.minKey();
+            int u = heap.extractMin();
+            settled[u] = search;
+            if (u == t) {
+                sinkDistance = d;
+                break;
+            }
+            for (int e = head[u]; e != -1; e = next[e]) {
+                int v = to[e];
+                if (cap[e] <= 0 || settled[v] == search) {
+                    continue;
+                }
+                long candidate = d + cost[e] + potential[u] - potential[v];
+                if (seen[v] != search || candidate < distance[v]) {
+                    distance[v] = candidate;
+                    seen[v] = search;
+                    parent[v] = u;
+                    parentArc[v] = e;
+                    heap.insertOrDecrease(v, candidate);
+                }
+            }
+        }
+        if (sinkDistance < 0) {
+            return false;
+        }
+        for (int v = 0; v < n; v++) {
+            potential[v] += settled[v] == search ? distance[v] : sinkDistance;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ *
+ * Title :- Parallel parser for large "V E" / "from to weight" edge list files
+ *
+ * even with EdgeListReader one thread parsing a file of several gigabytes is what the programs
+ * spend their time on before the first edge is relaxed. this parser maps the file and cuts it into
+ * chunks at whitespace (so no number is cut in half), and every chunk is parsed on a fork-join
+ * pool into its own int array of numbers. the numbers of all chunks form one token stream: the
+ * first two are the vertex and edge counts, and after them every three tokens are one edge.
+ *
+ * once the token count of every chunk is known, a prefix sum over the counts gives the position
+ * of each chunk's first token in the stream, so the chunks can write their tokens straight into
+ * the from/to/weight arrays in parallel. the csr graph is then built by partitioning the edges
+ * into blocks of source vertices, counting the out degrees per block, a parallel prefix sum over
+ * the degrees for the offsets, and placing the edges block by block (see toCsr()).
+ *
+ * the errors are the same as DijkstraAlgo.readGraph() prints for the same file: a chunk stops at
+ * its first token that is not an int, and the first missing token or the first invalid edge of
+ * the whole stream decides the message, whichever comes first in the file.
+ */
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class ParallelEdgeListParser {
+
+    static final long MIN_CHUNK_SIZE = 1 << 20;   // smaller files are parsed as a single chunk
+    static final long MAX_CHUNK_SIZE = 1L << 28;  // one chunk is mapped at once, so it stays well below 2 GB
+    static final int HEADER_TOKENS = 2;           // number of vertices and number of edges
+    static final int BLOCK_SIZE = 1 << 16;        // bytes copied out of the mapping at once
+
+    /**
+     * the numbers of one chunk of the file, in file order
+     */
+    static class Chunk {
+        long start;           // first byte of the chunk in the file
+        long end;             // one past its last byte
+        int[] tokens = new int[1024];
+        int count;            // number of int tokens before the end or the first invalid token
+        boolean stopped;      // a token that is not an int was found, nothing after it counts
+        long first;           // position of tokens[0] in the whole token stream
+
+        Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * parses the mapped bytes of the chunk, a token is an optional sign and decimal digits
+         * in the int range, exactly what EdgeListReader.hasNextInt() accepts. the mapping is
+         * copied in blocks into a byte array, which is much faster to scan than the buffer itself
+         */
+        void parse(FileChannel channel) throws IOException {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            byte[] block = new byte[BLOCK_SIZE];
+
+            // the token being read, it can continue in the next block
+            boolean inToken = false;
+            boolean signed = false;   // the token started with a sign
+            boolean negative = false;
+            boolean valid = true;
+            long result = 0;          // accumulated as a negative number so that Integer.MIN_VALUE still fits
+
+            for (int offset = 0; offset < data.limit(); offset += BLOCK_SIZE) {
+                int length = Math.min(BLOCK_SIZE, data.limit() - offset);
+                data.get(offset, block, 0, length);
+                for (int i = 0; i < length; i++) {
+                    byte b = block[i];
+                    if (b <= ' ' && b >= 0) {
+                        if (inToken) {
+                            if (!addToken(valid, signed, negative, result)) {
+                                return;
+                            }
+                            inToken = false;
+                        }
+                    } else if (!inToken) {
+                        inToken = true;
+                        signed = b == '-' || b == '+';
+                        negative = b == '-';
+                        valid = signed || (b >= '0' && b <= '9');
+                        result = signed || !valid ? 0 : '0' - b;
+                    } else if (b >= '0' && b <= '9' && valid) {
+                        result = result * 10 - (b - '0');
+                        signed = false;
+                        if (result < Integer.MIN_VALUE) {
+                            valid = false;
+                        }
+                    } else {
+                        valid = false;
+                    }
+                }
+            }
+            if (inToken) {
+                addToken(valid, signed, negative, result);
+            }
+        }
+
+        /**
+         * stores one finished token, or marks the chunk as stopped if it is not an int
+         * (a sign without digits is still signed when it ends)
+         */
+        boolean addToken(boolean valid, boolean signed, boolean negative, long result) {
+            if (!valid || signed || (!negative && result == Integer.MIN_VALUE)) {
+                stopped = true;
+                return false;
+            }
+            if (count == tokens.length) {
+                tokens = Arrays.copyOf(tokens, count * 2);
+            }
+            tokens[count++] = (int) (negative ? result : -result);
+            return true;
+        }
+    }
+
+    /**
+     * reads the graph of a text edge list file on the given number of threads, if the input is
+     * invalid the problem is printed like DijkstraAlgo.readGraph() does and null is returned
+     */
+    static DijkstraAlgo.CsrGraph parse(String fileName, int threads)
+            throws IOException, InterruptedException, ExecutionException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            List<Chunk> chunks = split(channel, threads);
+            runAll(pool, chunks.size(), i -> chunks.get(i).parse(channel));
+
+            // prefix sum over the token counts, the stream ends at the first chunk that stopped
+            long available = 0;
+            int used = 0;
+            for (Chunk chunk : chunks) {
+                chunk.first = available;
+                available += chunk.count;
+                used++;
+                if (chunk.stopped) {
+                    break;
+                }
+            }
+            int[] header = new int[HEADER_TOKENS];
+            for (int i = 0; i < Math.min(HEADER_TOKENS, available); i++) {
+                header[i] = tokenAt(chunks, i);
+            }
+            if (available < 1) {
+                System.out.println("please enter number of vertices");
+                return null;
+            }
+            if (available < 2) {
+                System.out.println("please enter number of edges");
+                return null;
+            }
+            int numberOfVertices = Math.max(header[0], 0);
+            int numberOfEdges = Math.max(header[1], 0);
+
+            // the edges whose three tokens are all there, the rest of the stream is ignored
+            int completeEdges = (int) Math.min(numberOfEdges, (available - HEADER_TOKENS) / 3);
+            int[] from = new int[completeEdges];
+            int[] to = new int[completeEdges];
+            int[] weight = new int[completeEdges];
+            int[][] fields = { from, to, weight };
+            long streamEnd = HEADER_TOKENS + 3L * completeEdges;
+            runAll(pool, used, i -> {
+                Chunk chunk = chunks.get(i);
+                long position = Math.max(chunk.first, HEADER_TOKENS);
+                long last = Math.min(chunk.first + chunk.count, streamEnd);
+                if (position >= last) {
+                    return;
+                }
+                int field = (int) ((position - HEADER_TOKENS) % 3);
+                int edge = (int) ((position - HEADER_TOKENS) / 3);
+                for (int t = (int) (position - chunk.first); t < (int) (last - chunk.first); t++) {
+                    fields[field][edge] = chunk.tokens[t];
+                    if (++field == 3) {
+                        field = 0;
+                        edge++;
+                    }
+                }
+            });
+
+            // the first edge with a vertex out of range or a weight that is not positive
+            int taskCount = Math.max(1, Math.min(threads * 4, completeEdges / 4096));
+            int[] firstInvalid = new int[taskCount];
+            runAll(pool, taskCount, task -> {
+                int begin = (int) ((long) completeEdges * task / taskCount);
+                int end = (int) ((long) completeEdges * (task + 1) / taskCount);
+                firstInvalid[task] = Integer.MAX_VALUE;
+                for (int e = begin; e < end; e++) {
+                    if (from[e] < 0 || from[e] >= numberOfVertices || to[e] < 0 || to[e] >= numberOfVertices
+                            || weight[e] <= 0) {
+                        firstInvalid[task] = e;
+                        break;
+                    }
+                }
+            });
+            for (int e : firstInvalid) {
+                if (e != Integer.MAX_VALUE) {
+                    if (from[e] < 0 || from[e] >= numberOfVertices || to[e] < 0 || to[e] >= numberOfVertices) {
+                        System.out.println("vertex numbers must be between 0 and " + (header[0] - 1));
+                    } else {
+                        System.out.println("edge weight must be a positive integer");
+                    }
+                    return null;
+                }
+            }
+            if (completeEdges < numberOfEdges) {
+                int missing = (int) ((available - HEADER_TOKENS) % 3);
+                System.out.println(missing == 0 ? "edge start vertex expected"
+                        : missing == 1 ? "edge end vertex expected" : "edge weight expected");
+                return null;
+            }
+
+            return toCsr(pool, numberOfVertices, from, to, weight, taskCount);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * the nominal chunk boundaries are moved forward to the next whitespace byte, so a number
+     * that crosses a boundary belongs to the chunk before it
+     */
+    static List<Chunk> split(FileChannel channel, int threads) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, size / (threads * 4L) + 1));
+        List<Chunk> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(64);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            boolean found = end == size;
+            while (!found) {
+                probe.clear();
+                int read = channel.read(probe, end);
+                for (int i = 0; i < read && !found; i++) {
+                    byte b = probe.get(i);
+                    if (b <= ' ' && b >= 0) {
+                        found = true;
+                    } else {
+                        end++;
+                    }
+                }
+                if (read <= 0 || end - start >= MAX_CHUNK_SIZE) {
+                    found = true;
+                }
+            }
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * the value of one token of the stream, found by the first token positions of the chunks
+     */
+    static int tokenAt(List<Chunk> chunks, long position) {
+        for (Chunk chunk : chunks) {
+            if (position < chunk.first + chunk.count) {
+                return chunk.tokens[(int) (position - chunk.first)];
+            }
+        }
+        throw new IllegalStateException("token " + position + " was not parsed");
+    }
+
+    /**
+     * the edges are first partitioned by blocks of source vertices: every task counts its range
+     * of edges per block, a prefix sum over (block, task) gives each task its own slots, and the
+     * edges are copied there in order. every block then belongs to one task, which counts the out
+     * degrees of its vertices, and after a parallel prefix sum over all degrees it drops its edges
+     * into their slots. nothing is shared between tasks, and the edges of one vertex keep their
+     * input order like in CsrGraph.fromEdgeList()
+     */
+    static DijkstraAlgo.CsrGraph toCsr(ForkJoinPool pool, int n, int[] from, int[] to, int[] weight, int taskCount)
+            throws InterruptedException, ExecutionException {
+        int m = from.length;
+        int blockWidth = Math.max(1, (n + taskCount - 1) / taskCount); // vertices per block
+        int blocks = Math.max(1, (n + blockWidth - 1) / blockWidth);
+        int[] edgeStart = new int[taskCount + 1];                     // edge range of every task
+        for (int task = 0; task <= taskCount; task++) {
+            edgeStart[task] = (int) ((long) m * task / taskCount);
+        }
+
+        int[][] slots = new int[taskCount][blocks];
+        runAll(pool, taskCount, task -> {
+            for (int e = edgeStart[task]; e < edgeStart[task + 1]; e++) {
+                slots[task][from[e] / blockWidth]++;
+            }
+        });
+        int[] blockStart = new int[blocks + 1];
+        int total = 0;
+        for (int block = 0; block < blocks; block++) {
+            blockStart[block] = total;
+            for (int task = 0; task < taskCount; task++) {
+                int count = slots[task][block];
+                slots[task][block] = total;
+                total += count;
+            }
+        }
+        blockStart[blocks] = total;
+
+        int[] blockFrom = new int[m];
+        int[] blockTo = new int[m];
+        int[] blockWeight = new int[m];
+        runAll(pool, taskCount, task -> {
+            int[] next = slots[task];
+            for (int e = edgeStart[task]; e < edgeStart[task + 1]; e++) {
+                int slot = next[from[e] / blockWidth]++;
+                blockFrom[slot] = from[e];
+                blockTo[slot] = to[e];
+                blockWeight[slot] = weight[e];
+            }
+        });
+
+        int[] offsets = new int[n + 1];
+        runAll(pool, blocks, block -> {
+            for (int e = blockStart[block]; e < blockStart[block + 1]; e++) {
+                offsets[blockFrom[e] + 1]++;
+            }
+        });
+        pool.submit(() -> Arrays.parallelPrefix(offsets, Integer::sum)).get();
+
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+        runAll(pool, blocks, block -> {
+            int first = block * blockWidth;
+            int[] next = Arrays.copyOfRange(offsets, first, Math.min(n, first + blockWidth)); // next free slot per vertex
+            for (int e = blockStart[block]; e < blockStart[block + 1]; e++) {
+                int slot = next[blockFrom[e] - first]++;
+                targets[slot] = blockTo[e];
+                weights[slot] = blockWeight[e];
+            }
+        });
+        return new DijkstraAlgo.CsrGraph(n, offsets, targets, weights);
+    }
+
+    /**
+     * one piece of work of a parallel step, the argument is the task number
+     */
+    interface Task {
+        void run(int task) throws IOException;
+    }
+
+    /**
+     * runs tasks 0 .. count - 1 on the pool and waits for all of them
+     */
+    static void runAll(ForkJoinPool pool, int count, Task task) throws InterruptedException, ExecutionException {
+        List<Callable<Void>> calls = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            calls.add(() -> {
+                task.run(index);
+                return null;
+            });
+        }
+        for (Future<Void> future : pool.invokeAll(calls)) {
+            future.get();
+        }
+    }
+}
@@ -6,9 +6,14 @@
  * Date: 09-24-2024
  * 
  * In this implementation the focus is on Prim's algorithm to determine the minimum spanning tree of a connected,
- * undirected, weighted graph. Utilizing a custom min-heap, the priority queue is managed efficiently and also the decrease key is supported. 
- * The program reads graph data from standard input and outputs
+ * undirected, weighted graph. Utilizing a custom min-heap (IndexedDaryHeap.java), the priority queue is managed efficiently and also the decrease key is supported. 
+ * The program reads graph data from standard input (or maps a binary graph file written by BinaryGraph.java with --graph) and outputs
  * the total length of Prim's minimum spanning tree. If the graph is disconnected, it outputs "not connected".
+ * With --engine kruskal the same total is computed by Kruskal's algorithm over primitive edge arrays with a
+ * union-find, and with --sorted the edges are expected sorted by weight and are not stored at all.
+ * --engine filter-kruskal only sorts the edges that survive filtering against the union-find, for dense graphs.
+ * --engine boruvka runs Borůvka's algorithm on several threads (--threads, all cores by default).
+ * --edges writes the MST edges as "u v w" lines while they are found, to a file or with "-" to standard output.
  * 
  * Pseudocode Referred From The Book "Introduction to Algorithms":
  * 
@@ -31,6 +36,9 @@
  */
 
  import java.util.*;
+ import java.util.concurrent.*;
+ import java.util.concurrent.atomic.*;
+ import java.util.function.*;
  import java.io.*;
  
  public class PrimMST {
@@ -79,153 +87,35 @@
          }
      }
      
-      /**
-      * HeapElement is an element in the priority queue (min-heap) wwith a vertex and its current key value.
-      */
-     static class HeapElement {
-         int vertex;   //  for identifying the vertex
-         int key;      // Current key value (minimum weight to connect to MST)
-         
-         HeapElement(int vertex, int key){
-             this.vertex = vertex;
-             this.key = key;
-         }
-     }
-     
-    /**
-     * Here we have the most important part of the code, the MinHeap implementation
-     * that supports decrease key
-     */
-     static class MinHeap {
-         List<HeapElement> heap;    // The heap array
-         int[] vertexPosition;      // Maps vertex to its position in the heap for quick access
-         
-        /**
-         * the min-heap is initiliasied with a capacity based on number of the vertices
-         * the parameter size is the Number of vertices to fit in the heap
-         */
-         MinHeap(int size){
-             heap = new ArrayList<>(size);
-             vertexPosition = new int[size];
-             Arrays.fill(vertexPosition, -1); // Initialize all positions to -1 (not in heap)
-         }
-         
-        /**
-         * Checking if the heap is empty.
-         * returns true if heap is empty, false otherwise
-         */
-         boolean isEmpty(){
-             return heap.isEmpty();
-         }
-         
-        /**
-         * to insert a new HeapElement into the heap
-         */
-         void insert(HeapElement element){
-             heap.add(element);
-             int currentIndex = heap.size() - 1;
-             vertexPosition[element.vertex] = currentIndex;
-             heapUp(currentIndex);
-         }
-         
-        /**
-         * to extract the HeapElement with the minimum key from the heap
-         */
-         HeapElement extractMin(){
-             if(heap.isEmpty()) return null;
-             
-             HeapElement minElement = heap.get(0);
-             HeapElement lastElement = heap.remove(heap.size() - 1);
-             vertexPosition[minElement.vertex] = -1; 
-             
-             if(!heap.isEmpty()){
-                 heap.set(0, lastElement);
-                 vertexPosition[lastElement.vertex] = 0;
-                 heapDown(0);
-             }
-             
-             return minElement;
-         }
-         
-
-        /**
-         * the decrease key here plays an important role in decreasing the distance of a
-         * given vertex and it then adjusts the position of vertex in the heap
-         * parameter 'vertex' is the vertex whose key is to be decreased
-         * parameter newKey is the new smaller distance value
-         */
-         void decreaseKey(int vertex, int newKey){
-             int index = vertexPosition[vertex];
-             if(index == -1) 
-             return; // Vertex not present in heap
-             heap.get(index).key = newKey;
-             heapUp(index);
-         }
-         
-        /**
-         * it moves the element up at the given index to maintain the property of heap
-         */
-         void heapUp(int index){
-             while(index > 0){
-                 int parent = (index - 1) / 2;
-                 if(heap.get(parent).key > heap.get(index).key){
-                     swap(parent, index);
-                     index = parent;
-                 }
-                 else{
-                     break;
-                 }
-             }
-         }
-         
-        /**
-         * it moves the element down at the given index to maintain the property of heap
-         */
-         void heapDown(int index){
-             int smallest = index;
-             int leftChild = 2 * index + 1;
-             int rightChild = 2 * index + 2;
-             
-             if(leftChild < heap.size() && heap.get(leftChild).key < heap.get(smallest).key){
-                 smallest = leftChild;
-             }
-             if(rightChild < heap.size() && heap.get(rightChild).key < heap.get(smallest).key){
-                 smallest = rightChild;
-             }
-             if(smallest != index){
-                 swap(smallest, index);
-                 heapDown(smallest);
-             }
-         }
-        
-         /**
-         * it moves the element down at the given index to maintain the property of heap
-         * the parameter 'index' is the index of the element to heapify up
-         */
-         void swap(int i, int j){
-             HeapElement temp = heap.get(i);
-             heap.set(i, heap.get(j));
-             heap.set(j, temp);
-             
-             vertexPosition[heap.get(i).vertex] = i;
-             vertexPosition[heap.get(j).vertex] = j;
-         }
-     }
-     
      /**
       * Prim's algorithm to find the Minimum Spanning Tree of a graph.
       */
      static class PrimAlgorithm {
          Graph graph;           // given graph on which we have to test the algo
+         BinaryGraph mapped;    // or a mapped binary graph file, its edges are walked at both ends
+         int vertexCount;       // number of vertices of whichever graph is used
          int[] key;             // initialised an array to hold the minimum weight to connect each vertex to the MST
          int[] predecessor;     // initialised an array to hold the predecessor of each vertex in the MST
          boolean[] inMST;       //  initialised an array to track vertices included in the MST
-         int totalWeight;       // total weight of the mst
+         long totalWeight;      // total weight of the mst, a long because the sum of int weights can overflow an int
+         MSTEdgeSink sink;      // gets every tree edge as its vertex is settled, may be null
          
 
          PrimAlgorithm(Graph graph){
+             this(graph.vertexCount);
              this.graph = graph;
-             int n = graph.vertexCount;
+         }
+         
+         /**
+          * prim's algo straight on a mapped binary graph, nothing is copied onto the heap
+          */
+         PrimAlgorithm(BinaryGraph mapped){
+             this(mapped.vertexCount);
+             this.mapped = mapped;
+         }
+         
+         private PrimAlgorithm(int n){
+             vertexCount = n;
              key = new int[n];
              predecessor = new int[n];
              inMST = new boolean[n];
@@ -237,44 +127,53 @@
          /**
           * we use the prims algo and compute the mst using the pseudocode given in the beginning
           */
-         int computeMST(){
+         long computeMST(){
              // Step 1: initialising all keys as infinity and predecessors as NIL
              key[0] = 0; // the first vertex can be any vertex
+             BinaryGraph.Cursor[] cursors = mapped == null ? null
+                     : new BinaryGraph.Cursor[] { new BinaryGraph.Cursor(mapped, false), new BinaryGraph.Cursor(mapped, true) };
              
              // Step 3: initialising a min-heap and inserting all vertices in it
-             MinHeap minHeap = new MinHeap(graph.vertexCount);
-             for(int v = 0; v < graph.vertexCount; v++){
-                 minHeap.insert(new HeapElement(v, key[v]));
+             IndexedDaryHeap minHeap = new IndexedDaryHeap(vertexCount);
+             for(int v = 0; v < vertexCount; v++){
+                 minHeap.insert(v, key[v]);
              }
              
              while(!minHeap.isEmpty()){
-                 HeapElement minElement = minHeap.extractMin();
-                 int u = minElement.vertex;
+                 int minKey = minHeap.minKey();
+                 int u = minHeap.extractMin();
                  
-                 if(minElement.key == Integer.MAX_VALUE){
+                 if(minKey == Integer.MAX_VALUE){
                      // if the smallest key is still infinity, the remaining vertices are disconnected
                      return -1;
                  }
                  
                  inMST[u] = true; // include the vertex u in MST
-                 totalWeight += minElement.key; // then add its key to total weight
+                 totalWeight += minKey; // then add its key to total weight
+                 if(sink != null && predecessor[u] != -1){
+                     sink.accept(predecessor[u], u, minKey);
+                 }
                  
                  // Step 7: iterating over all adjacent vertices of u
-                 for(UndirectedEdge edge : graph.adjacencyList.get(u)){
-                     int v = (edge.vertex1 == u) ? edge.vertex2 : edge.vertex1;
-                     int weight = edge.weight;
-                     
-                     // Step 8: the case where if v is not in MST and weight is smaller than current key[v]
-                     if(!inMST[v] && weight < key[v]){
-                         key[v] = weight;
-                         predecessor[v] = u;
-                         minHeap.decreaseKey(v, key[v]); // Step 12: the call to decrease key function
+                 if(mapped != null){
+                     // a binary file keeps every edge at its start and at its end vertex
+                     for(BinaryGraph.Cursor cursor : cursors){
+                         cursor.start(u);
+                         while(cursor.next()){
+                             relax(u, cursor.vertex, (int) cursor.weight, minHeap);
+                         }
+                     }
+                 }
+                 else{
+                     for(UndirectedEdge edge : graph.adjacencyList.get(u)){
+                         int v = (edge.vertex1 == u) ? edge.vertex2 : edge.vertex1;
+                         relax(u, v, edge.weight, minHeap);
                      }
                  }
              }
              
              // Step 9: checking if all the vertices are included in the MST
-             for(int v = 0; v < graph.vertexCount; v++){
+             for(int v = 0; v < vertexCount; v++){
                  if(!inMST[v]){
                      return -1; // this indicates a disconnected graph
                  }
@@ -282,89 +181,820 @@
              
              return totalWeight;
          }
+         
+         /**
+          * Step 8: the case where if v is not in MST and weight is smaller than current key[v]
+          */
+         private void relax(int u, int v, int weight, IndexedDaryHeap minHeap){
+             if(!inMST[v] && weight < key[v]){
+                 key[v] = weight;
+                 predecessor[v] = u;
+                 minHeap.decreaseKey(v, key[v]); // Step 12: the call to decrease key function
+             }
+         }
+     }
+     
+     /**
+      * receives the edges of the MST one at a time, as soon as an engine has decided on them.
+      * the edges come as (u, v, w) with u the vertex already in the tree for prim, if the graph
+      * is not connected the edges given so far only span part of it
+      */
+     interface MSTEdgeSink {
+         void accept(int u, int v, int weight);
+     }
+     
+     /**
+      * the edges of the graph in three int arrays, for the engines that work on the edge list
+      * instead of the adjacency list (kruskal and boruvka). as an MSTEdgeSink it collects the
+      * MST edges, so after computeMST() the tree is in from[], to[] and weight[]
+      */
+     static class EdgeList implements MSTEdgeSink {
+         int[] from, to, weight;
+         int size;
+         
+         EdgeList(int capacity){
+             from = new int[capacity];
+             to = new int[capacity];
+             weight = new int[capacity];
+         }
+         
+         public void accept(int u, int v, int w){
+             add(u, v, w);
+         }
+         
+         void add(int u, int v, int w){
+             if(size == from.length){
+                 int capacity = Math.max(16, size * 2);
+                 from = Arrays.copyOf(from, capacity);
+                 to = Arrays.copyOf(to, capacity);
+                 weight = Arrays.copyOf(weight, capacity);
+             }
+             from[size] = u;
+             to[size] = v;
+             weight[size] = w;
+             size++;
+         }
+     }
+     
+     /**
+      * writes every MST edge as a "u v w" line as soon as it is found, so whoever reads the
+      * output can start while the MST is still being computed
+      */
+     static class MSTEdgeWriter implements MSTEdgeSink, Closeable {
+         OutputStream out;
+         byte[] buffer = new byte[1 << 16];
+         int length;
+         
+         MSTEdgeWriter(OutputStream out){
+             this.out = out;
+         }
+         
+         public void accept(int u, int v, int weight){
+             if(length > buffer.length - 36){
+                 flush();
+             }
+             writeNumber(u);
+             buffer[length++] = ' ';
+             writeNumber(v);
+             buffer[length++] = ' ';
+             writeNumber(weight);
+             buffer[length++] = '\n';
+         }
+         
+         private void writeNumber(int value){
+             if(value < 0){
+                 buffer[length++] = '-';
+             }
+             int digits = length;
+             do {
+                 buffer[length++] = (byte) ('0' + Math.abs(value % 10));
+                 value /= 10;
+             } while(value != 0);
+             // the digits came out last first
+             for(int i = digits, j = length - 1; i < j; i++, j--){
+                 byte b = buffer[i]; buffer[i] = buffer[j]; buffer[j] = b;
+             }
+         }
+         
+         void flush(){
+             try {
+                 out.write(buffer, 0, length);
+                 out.flush();
+             } catch(IOException e){
+                 throw new UncheckedIOException(e);
+             }
+             length = 0;
+         }
+         
+         public void close() throws IOException {
+             flush();
+             if(out != System.out){
+                 out.close();
+             }
+         }
+     }
+     
+     /**
+      * union-find (disjoint set) over the vertices in plain int arrays, find() uses path halving
+      * and union() hangs the lower ranked root under the higher one
+      */
+     static class UnionFind {
+         int[] parent;    // parent of each vertex, a root is its own parent
+         byte[] rank;     // upper bound on the height of each root's tree
+         
+         UnionFind(int vertexCount){
+             parent = new int[vertexCount];
+             rank = new byte[vertexCount];
+             for(int v = 0; v < vertexCount; v++){
+                 parent[v] = v;
+             }
+         }
+         
+         int find(int v){
+             while(parent[v] != v){
+                 parent[v] = parent[parent[v]]; // every vertex on the way skips its parent
+                 v = parent[v];
+             }
+             return v;
+         }
+         
+         /**
+          * joins the sets of a and b, returns false if they were already in the same set
+          */
+         boolean union(int a, int b){
+             int rootA = find(a);
+             int rootB = find(b);
+             if(rootA == rootB){
+                 return false;
+             }
+             if(rank[rootA] < rank[rootB]){
+                 parent[rootA] = rootB;
+             }
+             else if(rank[rootA] > rank[rootB]){
+                 parent[rootB] = rootA;
+             }
+             else{
+                 parent[rootB] = rootA;
+                 rank[rootA]++;
+             }
+             return true;
+         }
+     }
+     
+     /**
+      * Kruskal's algorithm, the edges are taken in order of weight and every edge that joins two
+      * different components is part of the MST. the edges are kept in three int arrays instead of
+      * an adjacency list, and sorted with a radix sort on the weight. if the input is already
+      * sorted by weight the edges do not have to be kept at all, see addSortedEdge()
+      */
+     static class KruskalAlgorithm {
+         int vertexCount;
+         UnionFind components;
+         EdgeList edges;         // the edges, null in sorted mode where they are not kept
+         int treeEdges;          // number of edges taken into the MST so far
+         long totalWeight;       // total weight of the mst, long like in PrimAlgorithm
+         int lastWeight;         // weight of the previous edge in sorted mode
+         MSTEdgeSink sink;       // gets every tree edge when it is taken, may be null
+         
+         KruskalAlgorithm(int vertexCount, EdgeList edges){
+             this.vertexCount = vertexCount;
+             this.edges = edges;
+             components = new UnionFind(Math.max(vertexCount, 0));
+         }
+         
+         /**
+          * streaming mode, the edge is taken right away, returns false if its weight is smaller
+          * than the one of the edge before (the input is not sorted)
+          */
+         boolean addSortedEdge(int u, int v, int w){
+             if(w < lastWeight){
+                 return false;
+             }
+             lastWeight = w;
+             take(u, v, w);
+             return true;
+         }
+         
+         void take(int u, int v, int w){
+             if(treeEdges < vertexCount - 1 && components.union(u, v)){
+                 treeEdges++;
+                 totalWeight += w;
+                 if(sink != null){
+                     sink.accept(u, v, w);
+                 }
+             }
+         }
+         
+         /**
+          * sorts the stored edges and runs them through the union-find in one pass
+          */
+         long computeMST(){
+             radixSortByWeight(edges);
+             for(int i = 0; i < edges.size && treeEdges < vertexCount - 1; i++){
+                 take(edges.from[i], edges.to[i], edges.weight[i]);
+             }
+             return result();
+         }
+         
+         /**
+          * the mst weight, or -1 if fewer than V - 1 edges were taken (the graph is disconnected)
+          */
+         long result(){
+             return treeEdges < vertexCount - 1 ? -1 : totalWeight;
+         }
+         
+         /**
+          * stable LSD radix sort of the edges on the weight, 16 bits per pass. weights are
+          * positive, and the second pass is skipped if all of them fit into 16 bits
+          */
+         static void radixSortByWeight(EdgeList edges){
+             int edgeCount = edges.size;
+             int[] from = edges.from, to = edges.to, weight = edges.weight;
+             int maxWeight = 0;
+             for(int i = 0; i < edgeCount; i++){
+                 maxWeight = Math.max(maxWeight, weight[i]);
+             }
+             int[] bufferFrom = new int[edgeCount];
+             int[] bufferTo = new int[edgeCount];
+             int[] bufferWeight = new int[edgeCount];
+             for(int shift = 0; shift < 32 && (shift == 0 || (maxWeight >>> shift) != 0); shift += 16){
+                 int[] start = new int[(1 << 16) + 1];
+                 for(int i = 0; i < edgeCount; i++){
+                     start[((weight[i] >>> shift) & 0xFFFF) + 1]++;
+                 }
+                 for(int digit = 0; digit < 1 << 16; digit++){
+                     start[digit + 1] += start[digit];
+                 }
+                 for(int i = 0; i < edgeCount; i++){
+                     int slot = start[(weight[i] >>> shift) & 0xFFFF]++;
+                     bufferFrom[slot] = from[i];
+                     bufferTo[slot] = to[i];
+                     bufferWeight[slot] = weight[i];
+                 }
+                 int[] swap = from; from = bufferFrom; bufferFrom = swap;
+                 swap = to; to = bufferTo; bufferTo = swap;
+                 swap = weight; weight = bufferWeight; bufferWeight = swap;
+             }
+             edges.from = from;
+             edges.to = to;
+             edges.weight = weight;
+         }
+     }
+     
+     /**
+      * Filter-Kruskal (Osipov, Sanders and Singler), for dense graphs where most edges never make
+      * it into the MST. instead of sorting all edges, the edges are partitioned around a random
+      * pivot weight like in quicksort, the light part is solved first, and the heavy part is then
+      * filtered against the union-find: edges inside one component are dropped before the heavy
+      * part is partitioned or sorted any further. on a near complete graph almost all heavy edges
+      * are gone by then, so only a small part of the edges is ever sorted
+      */
+     static class FilterKruskalAlgorithm extends KruskalAlgorithm {
+         static final int SORT_THRESHOLD = 4096;   // ranges up to this size are sorted directly
+         
+         Random random = new Random(1);
+         
+         FilterKruskalAlgorithm(int vertexCount, EdgeList edges){
+             super(vertexCount, edges);
+         }
+         
+         @Override
+         long computeMST(){
+             filterKruskal(0, edges.size);
+             return result();
+         }
+         
+         /**
+          * the MST edges among edges[lo, hi), every edge lighter than the range has been seen
+          */
+         void filterKruskal(int lo, int hi){
+             while(treeEdges < vertexCount - 1){
+                 if(hi - lo <= SORT_THRESHOLD){
+                     sortAndTake(lo, hi);
+                     return;
+                 }
+                 int pivot = edges.weight[lo + random.nextInt(hi - lo)];
+                 int mid = partition(lo, hi, pivot, false);
+                 if(mid == lo){
+                     // the pivot is the smallest weight, the edges of that weight go first
+                     mid = partition(lo, hi, pivot, true);
+                 }
+                 if(mid == hi){
+                     // all weights in the range are the same
+                     sortAndTake(lo, hi);
+                     return;
+                 }
+                 filterKruskal(lo, mid);
+                 lo = mid;
+                 hi = filter(mid, hi);
+             }
+         }
+         
+         /**
+          * moves the edges lighter than the pivot (or not heavier, if inclusive) to the front of
+          * the range and returns where the rest starts
+          */
+         int partition(int lo, int hi, int pivot, boolean inclusive){
+             int[] weight = edges.weight;
+             int i = lo;
+             for(int e = lo; e < hi; e++){
+                 if(weight[e] < pivot || (inclusive && weight[e] == pivot)){
+                     swap(i++, e);
+                 }
+             }
+             return i;
+         }
+         
+         /**
+          * drops the edges of the range whose ends are already in one component, returns the new end
+          */
+         int filter(int lo, int hi){
+             int kept = lo;
+             for(int e = lo; e < hi; e++){
+                 if(components.find(edges.from[e]) != components.find(edges.to[e])){
+                     swap(kept++, e);
+                 }
+             }
+             return kept;
+         }
+         
+         /**
+          * the base case, plain kruskal on the range with the edges sorted as (weight, position)
+          */
+         void sortAndTake(int lo, int hi){
+             long[] order = new long[hi - lo];
+             for(int e = lo; e < hi; e++){
+                 order[e - lo] = (long) edges.weight[e] << 32 | (e - lo);
+             }
+             Arrays.sort(order);
+             for(int k = 0; k < order.length && treeEdges < vertexCount - 1; k++){
+                 int e = lo + (int) order[k];
+                 take(edges.from[e], edges.to[e], edges.weight[e]);
+             }
+         }
+         
+         void swap(int a, int b){
+             int temp = edges.from[a]; edges.from[a] = edges.from[b]; edges.from[b] = temp;
+             temp = edges.to[a]; edges.to[a] = edges.to[b]; edges.to[b] = temp;
+             temp = edges.weight[a]; edges.weight[a] = edges.weight[b]; edges.weight[b] = temp;
+         }
      }
      
+     /**
+      * Borůvka's algorithm on several threads. every round each component picks its cheapest
+      * outgoing edge, all of these edges are part of the MST and join the components, so the
+      * number of components at least halves per round. ties are broken by the position of the
+      * edge in the array, which makes the cheapest edge unique and the picked edges free of cycles.
+      * 
+      * a round scans the edge array in parallel chunks and keeps the cheapest edge of every
+      * component as (weight << 32 | position) in an AtomicLongArray with a compare-and-set minimum,
+      * joins the components along the picked edges with a lock-free union-find, and then compacts
+      * the edge array down to the edges that still join two different components
+      */
+     static class BoruvkaAlgorithm {
+         static final long NONE = Long.MAX_VALUE;   // no outgoing edge found for the component
+         
+         int vertexCount;
+         EdgeList edges;
+         int threads;
+         AtomicIntegerArray parent;   // concurrent union-find, a root is its own parent
+         AtomicLongArray cheapest;    // cheapest outgoing edge of every root in the current round
+         MSTEdgeSink sink;            // gets the tree edges after every round, in a fixed order, may be null
+         
+         BoruvkaAlgorithm(int vertexCount, EdgeList edges, int threads){
+             this.vertexCount = vertexCount;
+             this.edges = edges;
+             this.threads = threads;
+         }
+         
+         long computeMST() throws InterruptedException, ExecutionException {
+             int n = Math.max(vertexCount, 0);
+             parent = new AtomicIntegerArray(n);
+             cheapest = new AtomicLongArray(n);
+             int[] active = new int[n];   // the roots at the start of the round
+             for(int v = 0; v < n; v++){
+                 parent.set(v, v);
+                 cheapest.set(v, NONE);
+                 active[v] = v;
+             }
+             int activeCount = n;
+             
+             // the work arrays hold the edges renamed to their components' roots, and the input
+             // position of every edge so the tree edges can be reported with their real ends
+             int[] from = edges.from, to = edges.to, weight = edges.weight;
+             int[] position = new int[edges.size];
+             for(int e = 0; e < edges.size; e++){
+                 position[e] = e;
+             }
+             int[] nextFrom = new int[edges.size], nextTo = new int[edges.size], nextWeight = new int[edges.size];
+             int[] nextPosition = new int[edges.size];
+             int edgeCount = edges.size;
+             int treeEdges = 0;
+             long totalWeight = 0;
+             
+             ForkJoinPool pool = new ForkJoinPool(threads);
+             try {
+                 while(edgeCount > 0 && treeEdges < vertexCount - 1){
+                     int[] f = from, t = to, w = weight, x = position;
+                     int count = edgeCount;
+                     
+                     // the cheapest outgoing edge of every component
+                     int edgeChunks = chunks(count);
+                     parallel(pool, edgeChunks, chunk -> {
+                         for(int e = start(chunk, edgeChunks, count); e < start(chunk + 1, edgeChunks, count); e++){
+                             int u = find(f[e]);
+                             int v = find(t[e]);
+                             if(u != v){
+                                 long candidate = (long) w[e] << 32 | e;
+                                 lower(u, candidate);
+                                 lower(v, candidate);
+                             }
+                         }
+                     });
+                     
+                     // joining along the picked edges, an edge picked by both of its components
+                     // joins them only once
+                     int[] roots = active;
+                     int rootCount = activeCount;
+                     int rootChunks = chunks(rootCount);
+                     int[] joined = new int[rootChunks];
+                     long[] joinedWeight = new long[rootChunks];
+                     EdgeList[] joinedEdges = new EdgeList[rootChunks];
+                     parallel(pool, rootChunks, chunk -> {
+                         for(int r = start(chunk, rootChunks, rootCount); r < start(chunk + 1, rootChunks, rootCount); r++){
+                             long best = cheapest.get(roots[r]);
+                             if(best != NONE){
+                                 cheapest.set(roots[r], NONE);
+                                 int e = (int) best;
+                                 if(union(f[e], t[e])){
+                                     joined[chunk]++;
+                                     joinedWeight[chunk] += w[e];
+                                     if(sink != null){
+                                         if(joinedEdges[chunk] == null){
+                                             joinedEdges[chunk] = new EdgeList(0);
+                                         }
+                                         joinedEdges[chunk].add(edges.from[x[e]], edges.to[x[e]], w[e]);
+                                     }
+                                 }
+                             }
+                         }
+                     });
+                     for(int chunk = 0; chunk < rootChunks; chunk++){
+                         treeEdges += joined[chunk];
+                         totalWeight += joinedWeight[chunk];
+                         for(int k = 0; joinedEdges[chunk] != null && k < joinedEdges[chunk].size; k++){
+                             sink.accept(joinedEdges[chunk].from[k], joinedEdges[chunk].to[k], joinedEdges[chunk].weight[k]);
+                         }
+                     }
+                     activeCount = 0;
+                     for(int r = 0; r < rootCount; r++){
+                         if(parent.get(roots[r]) == roots[r]){
+                             active[activeCount++] = roots[r];
+                         }
+                     }
+                     
+                     // compaction, every chunk counts its edges that still join two components,
+                     // a prefix sum over the counts gives each chunk its place in the new array
+                     int[] kept = new int[edgeChunks + 1];
+                     parallel(pool, edgeChunks, chunk -> {
+                         for(int e = start(chunk, edgeChunks, count); e < start(chunk + 1, edgeChunks, count); e++){
+                             if(find(f[e]) != find(t[e])){
+                                 kept[chunk + 1]++;
+                             }
+                         }
+                     });
+                     for(int chunk = 0; chunk < edgeChunks; chunk++){
+                         kept[chunk + 1] += kept[chunk];
+                     }
+                     int[] nf = nextFrom, nt = nextTo, nw = nextWeight, nx = nextPosition;
+                     parallel(pool, edgeChunks, chunk -> {
+                         int slot = kept[chunk];
+                         for(int e = start(chunk, edgeChunks, count); e < start(chunk + 1, edgeChunks, count); e++){
+                             int u = find(f[e]);
+                             int v = find(t[e]);
+                             if(u != v){
+                                 nf[slot] = u;
+                                 nt[slot] = v;
+                                 nw[slot] = w[e];
+                                 nx[slot] = x[e];
+                                 slot++;
+                             }
+                         }
+                     });
+                     edgeCount = kept[edgeChunks];
+                     if(from == edges.from){
+                         // the input arrays are left alone, the rounds swap between two work buffers
+                         from = new int[edgeCount];
+                         to = new int[edgeCount];
+                         weight = new int[edgeCount];
+                     }
+                     int[] swap = position; position = nextPosition; nextPosition = swap;
+                     swap = from; from = nextFrom; nextFrom = swap;
+                     swap = to; to = nextTo; nextTo = swap;
+                     swap = weight; weight = nextWeight; nextWeight = swap;
+                 }
+             } finally {
+                 pool.shutdown();
+             }
+             
+             // a spanning tree has exactly V - 1 edges, fewer means the graph is disconnected
+             return treeEdges < vertexCount - 1 ? -1 : totalWeight;
+         }
+         
+         /**
+          * root of v, the path is halved on the way with compare-and-set so a concurrent union
+          * is never overwritten (only non-roots are changed, and only to one of their ancestors)
+          */
+         int find(int v){
+             int p = parent.get(v);
+             while(p != v){
+                 int grandparent = parent.get(p);
+                 parent.compareAndSet(v, p, grandparent);
+                 v = p;
+                 p = parent.get(v);
+             }
+             return v;
+         }
+         
+         /**
+          * joins the components of a and b, the root with the larger number is hung under the
+          * other one so no cycle can form, returns false if they already were one component
+          */
+         boolean union(int a, int b){
+             while(true){
+                 int rootA = find(a);
+                 int rootB = find(b);
+                 if(rootA == rootB){
+                     return false;
+                 }
+                 int high = Math.max(rootA, rootB);
+                 int low = Math.min(rootA, rootB);
+                 if(parent.compareAndSet(high, high, low)){
+                     return true;
+                 }
+             }
+         }
+         
+         /**
+          * compare-and-set minimum of the cheapest edge of a root
+          */
+         void lower(int root, long candidate){
+             long current = cheapest.get(root);
+             while(candidate < current && !cheapest.compareAndSet(root, current, candidate)){
+                 current = cheapest.get(root);
+             }
+         }
+         
+         int chunks(int count){
+             return Math.max(1, Math.min(threads * 4, count / 1024));
+         }
+         
+         static int start(int chunk, int chunks, int count){
+             return (int) ((long) count * chunk / chunks);
+         }
+         
+         /**
+          * runs the chunks 0 .. count - 1 on the pool and waits for all of them
+          */
+         static void parallel(ForkJoinPool pool, int count, IntConsumer chunk) throws InterruptedException, ExecutionException {
+             List<Callable<Void>> tasks = new ArrayList<>();
+             for(int i = 0; i < count; i++){
+                 int index = i;
+                 tasks.add(() -> {
+                     chunk.accept(index);
+                     return null;
+                 });
+             }
+             for(Future<Void> task : pool.invokeAll(tasks)){
+                 task.get();
+             }
+         }
+     }
+     
+     static final String USAGE = "Usage: java PrimMST [--engine prim|kruskal|filter-kruskal|boruvka] [--sorted] [--threads <n>]"
+             + " [--graph <binary graph file>] [--edges <file>|-] < graph.txt";
+     static final List<String> ENGINES = Arrays.asList("prim", "kruskal", "filter-kruskal", "boruvka");
+     
      public static void main(String[] args) {
-         try {
-             Scanner scanner = new Scanner(System.in);
+         // the optional engine and input settings
+         String engine = "prim";
+         boolean sorted = false;      // kruskal only, the input edges come sorted by weight
+         int threads = Runtime.getRuntime().availableProcessors(); // boruvka only
+         String graphFile = null;
+         String edgesFile = null;     // the MST edges are written here, "-" for standard output
+         for(int i = 0; i < args.length; i++){
+             if(args[i].equals("--engine") && i + 1 < args.length && ENGINES.contains(args[i + 1])){
+                 engine = args[++i];
+             }
+             else if(args[i].equals("--sorted")){
+                 sorted = true;
+             }
+             else if(args[i].equals("--threads") && i + 1 < args.length){
+                 try {
+                     threads = Integer.parseInt(args[++i]);
+                 } catch(NumberFormatException e){
+                     threads = 0;
+                 }
+                 if(threads < 1){
+                     System.out.println("number of threads must be a positive integer");
+                     return;
+                 }
+             }
+             else if(args[i].equals("--graph") && i + 1 < args.length){
+                 graphFile = args[++i];
+             }
+             else if(args[i].equals("--edges") && i + 1 < args.length){
+                 edgesFile = args[++i];
+             }
+             else{
+                 System.out.println(USAGE);
+                 return;
+             }
+         }
+         if(sorted && (!engine.equals("kruskal") || graphFile != null)){
+             System.out.println("--sorted needs --engine kruskal and the edges on standard input");
+             return;
+         }
+         
+         try (MSTEdgeWriter writer = edgesFile == null ? null
+                 : new MSTEdgeWriter(edgesFile.equals("-") ? System.out : new FileOutputStream(edgesFile))) {
+             if(graphFile != null){
+                 // a binary graph file is mapped and prim's algo walks it directly
+                 BinaryGraph mapped = BinaryGraph.load(graphFile);
+                 if(mapped.longWeights){
+                     System.out.println("the weights in " + graphFile + " do not fit into an int, only MaxFlow can use it");
+                     return;
+                 }
+                 BinaryGraph.Cursor cursor = new BinaryGraph.Cursor(mapped, false);
+                 EdgeList edges = engine.equals("prim") ? null : new EdgeList(mapped.edgeCount);
+                 for(int u = 0; u < mapped.vertexCount; u++){
+                     cursor.start(u);
+                     while(cursor.next()){
+                         if(cursor.weight <= 0){
+                             System.out.println("edge weight must be a positive integer");
+                             return;
+                         }
+                         if(edges != null){
+                             edges.add(u, cursor.vertex, (int) cursor.weight);
+                         }
+                     }
+                 }
+                 long mstWeight;
+                 if(edges == null){
+                     PrimAlgorithm prim = new PrimAlgorithm(mapped);
+                     prim.sink = writer;
+                     mstWeight = prim.computeMST();
+                 }
+                 else{
+                     mstWeight = computeMST(engine, mapped.vertexCount, edges, threads, writer);
+                 }
+                 finish(writer, mstWeight);
+                 return;
+             }
+             
+             EdgeListReader reader = new EdgeListReader(System.in);
              
              // Read the number of vertices
-             if(!scanner.hasNextInt()){
+             if(!reader.hasNextInt()){
                  System.out.println("please enter number of vertice");
-                 scanner.close();
+                 reader.close();
                  return;
              }
-             int numberOfVertices = scanner.nextInt();
+             int numberOfVertices = reader.nextInt();
              
              // Read the number of edges
-             if(!scanner.hasNextInt()){
+             if(!reader.hasNextInt()){
                  System.out.println("please enter number of edges");
-                 scanner.close();
+                 reader.close();
                  return;
              }
-             int numberOfEdges = scanner.nextInt();
+             int numberOfEdges = reader.nextInt();
              
-             // Initialize the graph
-             Graph graph = new Graph(numberOfVertices);
+             // Initialize the graph, the other engines keep the edges in int arrays, and sorted
+             // kruskal does not keep them at all
+             Graph graph = engine.equals("prim") ? new Graph(numberOfVertices) : null;
+             EdgeList edges = graph == null && !sorted ? new EdgeList(Math.max(numberOfEdges, 0)) : null;
+             KruskalAlgorithm streaming = sorted ? new KruskalAlgorithm(numberOfVertices, null) : null;
+             if(streaming != null){
+                 streaming.sink = writer;
+             }
              
              // Read each edge and add to the graph
+             int[] edge = new int[3];
              for(int i = 0; i < numberOfEdges; i++){
-                 if(!scanner.hasNextInt()){
-                     System.out.println("edge start vertex expected");
-                     scanner.close();
+                 if(!readEdge(reader, numberOfVertices, edge)){
+                     reader.close();
                      return;
                  }
-                 int from = scanner.nextInt();
                  
-                 if(!scanner.hasNextInt()){
-                     System.out.println("edge end vertex expected");
-                     scanner.close();
-                     return;
+                 if(graph != null){
+                     graph.addUndirectedEdge(edge[0], edge[1], edge[2]);
                  }
-                 int to = scanner.nextInt();
-                 
-                 if(!scanner.hasNextInt()){
-                     System.out.println("edge weight expected");
-                     scanner.close();
-                     return;
+                 else if(edges != null){
+                     edges.add(edge[0], edge[1], edge[2]);
                  }
-                 int weight = scanner.nextInt();
-                 
-                 // Validate vertex numbers
-                 if(from < 0 || from >= numberOfVertices || to < 0 || to >= numberOfVertices){
-                     System.out.println("vertex numbers must be between 0 and " + (numberOfVertices - 1) + ".");
-                     scanner.close();
+                 else if(!streaming.addSortedEdge(edge[0], edge[1], edge[2])){
+                     System.out.println("edges must be sorted by weight for --sorted");
+                     reader.close();
                      return;
                  }
-                 
-                 // Validate edge weight
-                 if(weight <= 0){
-                     System.out.println("edge weight must be a positive integer");
-                     scanner.close();
-                     return;
-                 }
-                 
-                 // **Corrected Line:**
-                 graph.addUndirectedEdge(from, to, weight);
              }
              
-             scanner.close();
-             
-             // Execute Prim's algorithm
-             PrimAlgorithm prim = new PrimAlgorithm(graph);
-             int mstWeight = prim.computeMST();
+             reader.close();
              
-             // Output the result
-             if(mstWeight == -1){
-                 System.out.println("not connected");
+             // Execute Prim's algorithm, or the chosen engine
+             if(graph != null){
+                 PrimAlgorithm prim = new PrimAlgorithm(graph);
+                 prim.sink = writer;
+                 finish(writer, prim.computeMST());
              }
              else{
-                 System.out.println(mstWeight);
+                 finish(writer, streaming != null ? streaming.result()
+                         : computeMST(engine, numberOfVertices, edges, threads, writer));
              }
              
          } catch(Exception e){
              System.out.println("Error processing input: " + e.getMessage());
          }
      }
+     
+     /**
+      * runs one of the engines that work on the edge list, the tree edges go to the sink if there is one
+      */
+     static long computeMST(String engine, int vertexCount, EdgeList edges, int threads, MSTEdgeSink sink)
+             throws InterruptedException, ExecutionException {
+         if(engine.equals("boruvka")){
+             BoruvkaAlgorithm boruvka = new BoruvkaAlgorithm(vertexCount, edges, threads);
+             boruvka.sink = sink;
+             return boruvka.computeMST();
+         }
+         KruskalAlgorithm kruskal = engine.equals("filter-kruskal") ? new FilterKruskalAlgorithm(vertexCount, edges)
+                 : new KruskalAlgorithm(vertexCount, edges);
+         kruskal.sink = sink;
+         return kruskal.computeMST();
+     }
+     
+     /**
+      * the edges written so far are flushed before the total, so with "--edges -" they come first
+      */
+     static void finish(MSTEdgeWriter writer, long mstWeight){
+         if(writer != null){
+             writer.flush();
+         }
+         printResult(mstWeight);
+     }
+     
+     /**
+      * reads one "from to weight" edge into edge[], if it is missing or invalid the problem is
+      * printed and false is returned
+      */
+     static boolean readEdge(EdgeListReader reader, int numberOfVertices, int[] edge) throws IOException {
+         if(!reader.hasNextInt()){
+             System.out.println("edge start vertex expected");
+             return false;
+         }
+         int from = reader.nextInt();
+         
+         if(!reader.hasNextInt()){
+             System.out.println("edge end vertex expected");
+             return false;
+         }
+         int to = reader.nextInt();
+         
+         if(!reader.hasNextInt()){
+             System.out.println("edge weight expected");
+             return false;
+         }
+         int weight = reader.nextInt();
+         
+         // Validate vertex numbers
+         if(from < 0 || from >= numberOfVertices || to < 0 || to >= numberOfVertices){
+             System.out.println("vertex numbers must be between 0 and " + (numberOfVertices - 1) + ".");
+             return false;
+         }
+         
+         // Validate edge weight
+         if(weight <= 0){
+             System.out.println("edge weight must be a positive integer");
+             return false;
+         }
+         
+         edge[0] = from;
+         edge[1] = to;
+         edge[2] = weight;
+         return true;
+     }
+     
+     /**
+      * Output the result
+      */
+     static void printResult(long mstWeight){
+         if(mstWeight == -1){
+             System.out.println("not connected");
+         }
+         else{
+             System.out.println(mstWeight);
+         }
+     }
  }
  
\ No newline at end of file
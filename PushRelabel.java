@@ -0,0 +1,351 @@
+/*
+ *
+ * Title :- Push-relabel maximum flow for MaxFlow
+ *
+ * Goldberg and Tarjan's push-relabel algorithm works on a preflow instead of augmenting paths:
+ * the source floods all of its edges, and every vertex with excess (more flow in than out) pushes
+ * it along residual arcs to a neighbour one label lower. a vertex that can not push is relabeled
+ * to one more than its lowest residual neighbour. the label is a lower bound on the distance to
+ * the sink, a vertex whose label reaches V can no longer reach the sink and keeps its excess.
+ *
+ * the active vertex to discharge next is either the one with the highest label (the default, it
+ * is the fastest variant in practice) or the oldest one in a fifo queue. two heuristics do most
+ * of the work on real networks:
+ *   global relabel - every now and then the labels are recomputed exactly by a bfs from the sink
+ *                    over the reverse residual arcs, instead of creeping up one relabel at a time
+ *   gap            - when the last vertex with label k is relabeled, nothing above k can reach the
+ *                    sink any more, so all those vertices are lifted to V at once
+ *
+ * when no vertex below V is active the excess of the sink is the max flow. the excess that is left
+ * is then pushed back to the source (with labels from a bfs to the source), so the residual
+ * capacities left in the MaxFlow arcs describe a real flow again.
+ *
+ * it works directly on the flat arc arrays of MaxFlow, arc e and its reverse e ^ 1.
+ */
+
+import java.util.*;
+
+public class PushRelabel {
+
+    static final int GLOBAL_RELABEL_FACTOR = 6; // a global relabel is done after about 6 * V + E / 2 units of relabel work
+    static final int RELABEL_WORK = 12;         // cost of one relabel on top of the arcs it scans
+
+    MaxFlow network;      // the residual graph, the flow is left in its arcs
+    int n;                // number of vertices
+    int[] head;           // the arc arrays of the network
+    int[] next;
+    int[] to;
+    long[] cap;
+
+    boolean highestLabel; // discharge the highest active vertex instead of the oldest one
+    int source;
+    int sink;
+    int[] label;          // the labels, V and more means the vertex can not reach the sink
+    long[] excess;        // flow into a vertex minus flow out of it
+    int[] current;        // current arc of every vertex, the next one to try pushing along
+
+    // all vertices with a label below V, in one doubly linked list per label, for the gap heuristic
+    int[] levelHead;
+    int[] levelNext;
+    int[] levelPrev;
+    int maxLevel;         // highest label that has a list
+
+    // active vertices, either one stack per label (highest label) or a ring queue (fifo)
+    int[] activeHead;
+    int[] activeNext;
+    int maxActive;        // no active vertex has a higher label than this
+    int[] queue;
+    int queueStart;
+    int queueSize;
+    boolean[] queued;
+    int[] bfs;            // the network's bfs queue, used by bfsLabels while the fifo queue holds active vertices
+    boolean returning;    // the second phase, excess goes back to the source
+
+    long work;            // relabel work since the last global relabel
+
+    PushRelabel(MaxFlow network, boolean highestLabel) {
+        this.network = network;
+        this.highestLabel = highestLabel;
+        n = network.n;
+        head = network.head;
+        next = network.next;
+        to = network.to;
+        cap = network.cap;
+
+        label = new int[n];
+        excess = new long[n];
+        current = new int[n];
+        levelHead = new int[n];
+        levelNext = new int[n];
+        levelPrev = new int[n];
+        activeHead = new int[n];
+        Arrays.fill(activeHead, -1);
+        maxActive = -1;
+        activeNext = new int[n];
+        queue = new int[n];
+        queued = new boolean[n];
+        bfs = network.queue;
+    }
+
+    /**
+     * the max flow from s to t, the flow is left in the network's arcs like maxFlow() does
+     */
+    long run(int s, int t) {
+        if (s == t) {
+            return 0;
+        }
+        source = s;
+        sink = t;
+
+        // the source floods all of its arcs
+        label[s] = n;
+        for (int e = head[s]; e != -1; e = next[e]) {
+            excess[s] += cap[e];
+            push(s, e);
+        }
+        excess[s] = 0;
+        globalRelabel();
+
+        long threshold = (long) GLOBAL_RELABEL_FACTOR * n + network.arcCount / 2;
+        int v;
+        while ((v = nextActive()) != -1) {
+            discharge(v);
+            if (work > threshold) {
+                globalRelabel();
+            }
+        }
+        long flow = excess[t];
+
+        returnExcess();
+        return flow;
+    }
+
+    /**
+     * pushes as much of v's excess as fits through arc e
+     */
+    private void push(int v, int e) {
+        int w = to[e];
+        long delta = Math.min(excess[v], cap[e]);
+        cap[e] -= delta;
+        cap[e ^ 1] += delta;
+        excess[v] -= delta;
+        boolean idle = excess[w] == 0;
+        excess[w] += delta;
+        if (idle && delta > 0) {
+            activate(w);
+        }
+    }
+
+    private void activate(int w) {
+        if (w == source || w == sink) {
+            return;
+        }
+        if (returning || !highestLabel) {
+            if (!queued[w] && (returning || label[w] < n)) {
+                queued[w] = true;
+                queue[(queueStart + queueSize++) % n] = w;
+            }
+        } else if (label[w] < n) {
+            activeNext[w] = activeHead[label[w]];
+            activeHead[label[w]] = w;
+            maxActive = Math.max(maxActive, label[w]);
+        }
+    }
+
+    /**
+     * the next vertex to discharge, -1 when there is none. in the first phase vertices that were
+     * lifted to V while they waited are dropped, they keep their excess for the second phase
+     */
+    private int nextActive() {
+        if (highestLabel && !returning) {
+            while (maxActive >= 0 && activeHead[maxActive] == -1) {
+                maxActive--;
+            }
+            if (maxActive < 0) {
+                return -1;
+            }
+            int v = activeHead[maxActive];
+            activeHead[maxActive] = activeNext[v];
+            return v;
+        }
+        while (queueSize > 0) {
+            int v = queue[queueStart];
+            queueStart = (queueStart + 1) % n;
+            queueSize--;
+            queued[v] = false;
+            if (returning || label[v] < n) {
+                return v;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * pushes v's excess along admissible arcs (residual, one label down) and relabels v whenever
+     * its current arc runs out, until the excess is gone or v can no longer reach the sink
+     */
+    private void discharge(int v) {
+        while (excess[v] > 0) {
+            int e = current[v];
+            if (e == -1) {
+                relabel(v);
+                if (!returning && label[v] >= n) {
+                    return;
+                }
+                continue;
+            }
+            if (cap[e] > 0 && label[v] == label[to[e]] + 1) {
+                push(v, e);
+                if (cap[e] == 0) {
+                    current[v] = next[e];
+                }
+            } else {
+                current[v] = next[e];
+            }
+        }
+    }
+
+    /**
+     * the new label of v is one more than its lowest residual neighbour. in the first phase the
+     * gap heuristic runs when v was the last vertex with its old label
+     */
+    private void relabel(int v) {
+        int oldLabel = label[v];
+        if (!returning) {
+            removeLevel(v);
+            if (levelHead[oldLabel] == -1) {
+                gap(oldLabel);
+                label[v] = n;
+                return;
+            }
+        }
+        int newLabel = Integer.MAX_VALUE;
+        for (int e = head[v]; e != -1; e = next[e]) {
+            if (cap[e] > 0) {
+                newLabel = Math.min(newLabel, label[to[e]] + 1);
+            }
+            work++;
+        }
+        work += RELABEL_WORK;
+        current[v] = head[v];
+        if (returning) {
+            label[v] = newLabel;
+        } else if (newLabel >= n) {
+            label[v] = n;
+        } else {
+            label[v] = newLabel;
+            addLevel(v);
+        }
+    }
+
+    /**
+     * no vertex is left with label k, so the vertices above k are cut off from the sink
+     */
+    private void gap(int k) {
+        for (int level = k + 1; level <= maxLevel; level++) {
+            for (int u = levelHead[level]; u != -1; u = levelNext[u]) {
+                label[u] = n;
+            }
+            levelHead[level] = -1;
+            if (highestLabel) {
+                activeHead[level] = -1;
+            }
+        }
+        maxLevel = k - 1;
+        maxActive = Math.min(maxActive, k - 1);
+    }
+
+    private void addLevel(int v) {
+        int level = label[v];
+        levelNext[v] = levelHead[level];
+        levelPrev[v] = -1;
+        if (levelHead[level] != -1) {
+            levelPrev[levelHead[level]] = v;
+        }
+        levelHead[level] = v;
+        maxLevel = Math.max(maxLevel, level);
+    }
+
+    private void removeLevel(int v) {
+        if (levelPrev[v] != -1) {
+            levelNext[levelPrev[v]] = levelNext[v];
+        } else {
+            levelHead[label[v]] = levelNext[v];
+        }
+        if (levelNext[v] != -1) {
+            levelPrev[levelNext[v]] = levelPrev[v];
+        }
+    }
+
+    /**
+     * exact labels, the bfs distance to 'root' over the reverse residual arcs. vertices that do
+     * not reach the root get 'unreached', the source keeps V in the first phase
+     */
+    private void bfsLabels(int root, int unreached) {
+        Arrays.fill(label, unreached);
+        label[root] = 0;
+        int start = 0;
+        int end = 0;
+        bfs[end++] = root;
+        while (start < end) {
+            int u = bfs[start++];
+            for (int e = head[u]; e != -1; e = next[e]) {
+                int w = to[e];
+                if (cap[e ^ 1] > 0 && label[w] == unreached && w != source && w != sink) {
+                    label[w] = label[u] + 1;
+                    bfs[end++] = w;
+                }
+            }
+        }
+        for (int u = 0; u < n; u++) {
+            current[u] = head[u];
+        }
+    }
+
+    /**
+     * the global relabel of the first phase, the level lists and active stacks are rebuilt from
+     * the new labels. the fifo queue is not touched, it only holds vertices with excess
+     */
+    private void globalRelabel() {
+        bfsLabels(sink, n);
+        Arrays.fill(levelHead, -1);
+        maxLevel = 0;
+        for (int u = 0; u < n; u++) {
+            if (label[u] < n) {
+                addLevel(u);
+            }
+        }
+        if (highestLabel) {
+            Arrays.fill(activeHead, -1);
+            maxActive = -1;
+            for (int u = 0; u < n; u++) {
+                if (excess[u] > 0) {
+                    activate(u);
+                }
+            }
+        }
+        work = 0;
+    }
+
+    /**
+     * the second phase, the excess that could not reach the sink goes back to the source. every
+     * such vertex got it from the source, so it has a residual path back and the fifo discharge
+     * with labels that count the distance to the source ends with no excess left
+     */
+    private void returnExcess() {
+        returning = true;
+        bfsLabels(source, Integer.MAX_VALUE / 2);
+        queueStart = 0;
+        queueSize = 0;
+        Arrays.fill(queued, false);
+        for (int u = 0; u < n; u++) {
+            if (excess[u] > 0) {
+                activate(u);
+            }
+        }
+        int v;
+        while ((v = nextActive()) != -1) {
+            discharge(v);
+        }
+    }
+}
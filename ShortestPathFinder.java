@@ -11,6 +11,9 @@
 
  import java.util.*;
  import java.io.*;
+ import java.nio.*;
+ import java.nio.channels.*;
+ import java.nio.file.*;
  
  public class ShortestPathFinder {
      
@@ -33,6 +36,7 @@
      static class Graph {
          int vertexCount; // Total number of vertices in the graph
          List<List<DirectedEdge>> adjacencyList; // Adjacency list for each vertex
+         List<List<DirectedEdge>> reverseAdjacencyList; // Incoming edges of each vertex, destination is the edge's source
          
          /**
           * Initializes the graph with the specified number of vertices.
@@ -41,8 +45,10 @@
          Graph(int vertexCount){
              this.vertexCount = vertexCount;
              adjacencyList = new ArrayList<>();
+             reverseAdjacencyList = new ArrayList<>();
              for(int i = 0; i < vertexCount; i++) {
                  adjacencyList.add(new ArrayList<>());
+                 reverseAdjacencyList.add(new ArrayList<>());
              }
          }
          
@@ -54,6 +60,7 @@
           */
          void addDirectedEdge(int from, int to, int weight){
              adjacencyList.get(from).add(new DirectedEdge(to, weight));
+             reverseAdjacencyList.get(to).add(new DirectedEdge(from, weight));
          }
      }
      
@@ -95,6 +102,23 @@
              return heap.isEmpty();
          }
          
+         /**
+          * Returns the HeapElement with the minimum distance without removing it.
+          * @return The HeapElement with the smallest distance, or null if the heap is empty
+          */
+         HeapElement peek(){
+             return heap.isEmpty() ? null : heap.get(0);
+         }
+         
+         /**
+          * Checks whether the vertex is currently in the heap.
+          * @param vertex The vertex to look up
+          * @return true if the vertex is in the heap, false otherwise
+          */
+         boolean contains(int vertex){
+             return vertexPosition[vertex] != -1;
+         }
+         
          /**
           * Inserts a new HeapElement into the heap.
           * @param element The HeapElement to be inserted
@@ -248,6 +272,42 @@
              }
          }
          
+         /**
+          * Lazy variant for a single source-target query. A vertex is inserted into the heap only
+          * when it is first reached, and the search stops as soon as the target is settled.
+          */
+         void findShortestPathToTarget(){
+             distances[source] = 0; // Distance from source to itself is zero
+             
+             CustomMinHeap priorityQueue = new CustomMinHeap(graph.vertexCount);
+             priorityQueue.insert(new HeapElement(source, 0));
+             
+             while(!priorityQueue.isEmpty()){
+                 HeapElement current = priorityQueue.extractMin();
+                 int u = current.vertex;
+                 if(u == target){
+                     break; // Target settled, its distance and predecessors are final
+                 }
+                 
+                 for(DirectedEdge edge : graph.adjacencyList.get(u)){
+                     int v = edge.destination;
+                     int weight = edge.weight;
+                     
+                     // Relaxation step: insert on first discovery, otherwise decrease the key
+                     if(distances[u] + weight < distances[v]){
+                         distances[v] = distances[u] + weight;
+                         predecessors[v] = u;
+                         if(priorityQueue.contains(v)){
+                             priorityQueue.decreaseKey(v, distances[v]);
+                         }
+                         else{
+                             priorityQueue.insert(new HeapElement(v, distances[v]));
+                         }
+                     }
+                 }
+             }
+         }
+         
          /**
           * Retrieves the shortest distance from the source to the target vertex.
           * @return The shortest distance, or Integer.MAX_VALUE if no path exists
@@ -273,17 +333,410 @@
          }
      }
      
+     /**
+      * Bidirectional variant of Dijkstra's algorithm for a single source-target query.
+      * A forward search from the source over adjacencyList and a backward search from the target
+      * over reverseAdjacencyList are alternated, always advancing the side with the smaller heap minimum.
+      * Every relaxed edge that touches a vertex already reached by the other side gives a candidate
+      * path length, and the search stops once the two heap minima together reach the best candidate.
+      * The backward half of the best path is then copied into predecessors so getPath() works unchanged.
+      */
+     static class BidirectionalDijkstra extends DijkstraAlgorithm {
+         int[] backwardDistances;  // Shortest known distances to the target along reverse edges
+         int[] successors;         // Next vertex towards the target for vertices reached backwards
+         int meetingVertex;        // Vertex where the best forward and backward paths meet, -1 if none
+         
+         /**
+          * Initializes the bidirectional search with the graph, source, and target vertices.
+          * @param graph The graph, with its reverse adjacency list
+          * @param source The starting vertex
+          * @param target The destination vertex
+          */
+         BidirectionalDijkstra(Graph graph, int source, int target){
+             super(graph, source, target);
+             backwardDistances = new int[graph.vertexCount];
+             successors = new int[graph.vertexCount];
+             Arrays.fill(backwardDistances, Integer.MAX_VALUE);
+             Arrays.fill(successors, -1);
+             meetingVertex = -1;
+         }
+         
+         /**
+          * Executes the bidirectional search and leaves the result in distances[target] and predecessors.
+          */
+         @Override
+         void findShortestPath(){
+             distances[source] = 0;
+             backwardDistances[target] = 0;
+             int best = Integer.MAX_VALUE;
+             if(source == target){
+                 best = 0;
+                 meetingVertex = source;
+             }
+             
+             CustomMinHeap forwardQueue = new CustomMinHeap(graph.vertexCount);
+             CustomMinHeap backwardQueue = new CustomMinHeap(graph.vertexCount);
+             forwardQueue.insert(new HeapElement(source, 0));
+             backwardQueue.insert(new HeapElement(target, 0));
+             
+             while(!forwardQueue.isEmpty() && !backwardQueue.isEmpty()){
+                 int forwardMin = forwardQueue.peek().distance;
+                 int backwardMin = backwardQueue.peek().distance;
+                 
+                 // Stopping rule: no undiscovered path can be shorter than the best one found so far
+                 if(best != Integer.MAX_VALUE && (long) forwardMin + backwardMin >= best){
+                     break;
+                 }
+                 
+                 boolean forward = forwardMin <= backwardMin;
+                 CustomMinHeap queue = forward ? forwardQueue : backwardQueue;
+                 List<List<DirectedEdge>> edges = forward ? graph.adjacencyList : graph.reverseAdjacencyList;
+                 int[] dist = forward ? distances : backwardDistances;
+                 int[] otherDist = forward ? backwardDistances : distances;
+                 int[] parent = forward ? predecessors : successors;
+                 
+                 int u = queue.extractMin().vertex;
+                 for(DirectedEdge edge : edges.get(u)){
+                     int v = edge.destination;
+                     int candidate = dist[u] + edge.weight;
+                     
+                     if(candidate < dist[v]){
+                         dist[v] = candidate;
+                         parent[v] = u;
+                         if(queue.contains(v)){
+                             queue.decreaseKey(v, candidate);
+                         }
+                         else{
+                             queue.insert(new HeapElement(v, candidate));
+                         }
+                     }
+                     
+                     // The edge closes a source-target path through v if the other side has reached v
+                     if(otherDist[v] != Integer.MAX_VALUE && dist[v] + otherDist[v] < best){
+                         best = dist[v] + otherDist[v];
+                         meetingVertex = v;
+                     }
+                 }
+             }
+             
+             if(meetingVertex == -1){
+                 return; // distances[target] stays Integer.MAX_VALUE
+             }
+             
+             // Splice the backward half of the path into predecessors
+             for(int at = meetingVertex; at != target; at = successors[at]){
+                 predecessors[successors[at]] = at;
+             }
+             distances[target] = best;
+         }
+     }
+     
+     /**
+      * ALT (A*, landmarks, triangle inequality) preprocessing for repeated queries on one graph.
+      * For k landmarks L the exact distances d(L, v) and d(v, L) are stored for every vertex, and by the
+      * triangle inequality both d(L, t) - d(L, v) and d(v, L) - d(t, L) are lower bounds on d(v, t).
+      * Landmarks are picked by farthest-point selection, and the tables can be saved to a compact
+      * binary file so the preprocessing is paid once per graph.
+      */
+     static class LandmarkIndex {
+         static final int MAGIC = 0x414C5431; // "ALT1", marks a landmark index file
+         static final int CHUNK_INTS = 1 << 22;  // Ints per mapping or write, 16 MB, far below the 2 GB limit
+         
+         int vertexCount;        // Number of vertices of the indexed graph
+         int[] landmarks;        // The selected landmark vertices
+         int[][] fromLandmark;   // fromLandmark[i][v] = d(landmarks[i], v), Integer.MAX_VALUE if unreachable
+         int[][] toLandmark;     // toLandmark[i][v] = d(v, landmarks[i]), Integer.MAX_VALUE if unreachable
+         
+         LandmarkIndex(int vertexCount, int[] landmarks, int[][] fromLandmark, int[][] toLandmark){
+             this.vertexCount = vertexCount;
+             this.landmarks = landmarks;
+             this.fromLandmark = fromLandmark;
+             this.toLandmark = toLandmark;
+         }
+         
+         /**
+          * Selects up to k landmarks by farthest-point selection and computes their distance tables.
+          * The first landmark is the vertex farthest from vertex 0, every next one is the vertex whose
+          * closest landmark is farthest away, where unreachable counts as infinitely far.
+          * @param graph The graph, with its reverse adjacency list
+          * @param k Number of landmarks to select
+          * @return The landmark index
+          */
+         static LandmarkIndex build(Graph graph, int k){
+             int n = graph.vertexCount;
+             k = Math.min(k, n);
+             int[] landmarks = new int[k];
+             int[][] fromLandmark = new int[k][];
+             int[][] toLandmark = new int[k][];
+             
+             long[] closest = new long[n]; // Distance from each vertex to its closest selected landmark
+             int[] start = distancesFrom(graph.adjacencyList, n, 0);
+             for(int v = 0; v < n; v++){
+                 closest[v] = start[v] == Integer.MAX_VALUE ? -1 : start[v]; // Prefer far but reachable first
+             }
+             
+             for(int i = 0; i < k; i++){
+                 int next = 0;
+                 for(int v = 1; v < n; v++){
+                     if(closest[v] > closest[next]){
+                         next = v;
+                     }
+                 }
+                 landmarks[i] = next;
+                 fromLandmark[i] = distancesFrom(graph.adjacencyList, n, next);
+                 toLandmark[i] = distancesFrom(graph.reverseAdjacencyList, n, next);
+                 
+                 if(i == 0){
+                     Arrays.fill(closest, Long.MAX_VALUE);
+                 }
+                 for(int v = 0; v < n; v++){
+                     long around = (long) fromLandmark[i][v] + toLandmark[i][v]; // Round trip, infinite if either side is
+                     closest[v] = Math.min(closest[v], around);
+                 }
+                 closest[next] = -1; // Never select the same vertex twice
+             }
+             return new LandmarkIndex(n, landmarks, fromLandmark, toLandmark);
+         }
+         
+         /**
+          * Computes the distances from the source to every vertex over the given adjacency lists.
+          * @param edges The adjacency lists to follow, forward or reverse
+          * @param vertexCount Number of vertices
+          * @param source The starting vertex
+          * @return The distance array, Integer.MAX_VALUE for unreachable vertices
+          */
+         static int[] distancesFrom(List<List<DirectedEdge>> edges, int vertexCount, int source){
+             int[] dist = new int[vertexCount];
+             Arrays.fill(dist, Integer.MAX_VALUE);
+             dist[source] = 0;
+             CustomMinHeap queue = new CustomMinHeap(vertexCount);
+             queue.insert(new HeapElement(source, 0));
+             while(!queue.isEmpty()){
+                 int u = queue.extractMin().vertex;
+                 for(DirectedEdge edge : edges.get(u)){
+                     int v = edge.destination;
+                     if(dist[u] + edge.weight < dist[v]){
+                         dist[v] = dist[u] + edge.weight;
+                         if(queue.contains(v)){
+                             queue.decreaseKey(v, dist[v]);
+                         }
+                         else{
+                             queue.insert(new HeapElement(v, dist[v]));
+                         }
+                     }
+                 }
+             }
+             return dist;
+         }
+         
+         /**
+          * Lower bound on d(v, t) from the triangle inequality over all landmarks.
+          * @param v The vertex being estimated
+          * @param t The target vertex
+          * @return A value that never exceeds the true distance from v to t
+          */
+         int lowerBound(int v, int t){
+             int bound = 0;
+             for(int i = 0; i < landmarks.length; i++){
+                 int[] from = fromLandmark[i];
+                 int[] to = toLandmark[i];
+                 if(from[v] != Integer.MAX_VALUE && from[t] != Integer.MAX_VALUE){
+                     bound = Math.max(bound, from[t] - from[v]);
+                 }
+                 if(to[v] != Integer.MAX_VALUE && to[t] != Integer.MAX_VALUE){
+                     bound = Math.max(bound, to[v] - to[t]);
+                 }
+             }
+             return bound;
+         }
+         
+         /**
+          * Writes the index as: magic, vertex count, k, the k landmarks, then for every landmark
+          * its from-table and its to-table, all as 4 byte big-endian ints. The tables go through
+          * one small buffer piece by piece, the whole file can be far larger than a heap buffer.
+          * @param fileName The file to write
+          * @throws IOException If the file cannot be written
+          */
+         void save(String fileName) throws IOException {
+             int k = landmarks.length;
+             ByteBuffer buffer = ByteBuffer.allocate(4 * CHUNK_INTS);
+             try(FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+                 writeInts(channel, buffer, new int[]{MAGIC, vertexCount, k});
+                 writeInts(channel, buffer, landmarks);
+                 for(int i = 0; i < k; i++){
+                     writeInts(channel, buffer, fromLandmark[i]);
+                     writeInts(channel, buffer, toLandmark[i]);
+                 }
+             }
+         }
+         
+         /**
+          * Writes the values to the channel at its current position, at most CHUNK_INTS at a time.
+          * @param channel The file being written
+          * @param buffer The buffer the values are copied through
+          * @param values The ints to write
+          * @throws IOException If the file cannot be written
+          */
+         static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+             for(int from = 0; from < values.length; from += CHUNK_INTS){
+                 int count = Math.min(CHUNK_INTS, values.length - from);
+                 buffer.clear();
+                 buffer.asIntBuffer().put(values, from, count);
+                 buffer.limit(4 * count);
+                 while(buffer.hasRemaining()){
+                     channel.write(buffer);
+                 }
+             }
+         }
+         
+         /**
+          * Reads an index written by save() through memory mappings of the file. A single mapping
+          * can not be larger than 2 GB, so every table is mapped in pieces of CHUNK_INTS ints.
+          * @param fileName The file to read
+          * @param vertexCount Number of vertices of the graph the index must belong to
+          * @return The landmark index
+          * @throws IOException If the file cannot be read or does not belong to this graph
+          */
+         static LandmarkIndex load(String fileName, int vertexCount) throws IOException {
+             try(FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)){
+                 long size = channel.size();
+                 int[] header = new int[3];
+                 if(size < 4 * header.length){
+                     throw new IOException(fileName + " is not a landmark index");
+                 }
+                 readInts(channel, 0, header);
+                 if(header[0] != MAGIC){
+                     throw new IOException(fileName + " is not a landmark index");
+                 }
+                 if(header[1] != vertexCount){
+                     throw new IOException(fileName + " was built for " + header[1] + " vertices, not " + vertexCount);
+                 }
+                 int k = header[2];
+                 if(k < 0 || size != 4 * (3 + k + 2L * k * vertexCount)){
+                     throw new IOException(fileName + " is truncated");
+                 }
+                 long position = 4 * 3;
+                 int[] landmarks = new int[k];
+                 position = readInts(channel, position, landmarks);
+                 int[][] fromLandmark = new int[k][vertexCount];
+                 int[][] toLandmark = new int[k][vertexCount];
+                 for(int i = 0; i < k; i++){
+                     position = readInts(channel, position, fromLandmark[i]);
+                     position = readInts(channel, position, toLandmark[i]);
+                 }
+                 return new LandmarkIndex(vertexCount, landmarks, fromLandmark, toLandmark);
+             }
+         }
+         
+         /**
+          * Fills the values from the file, starting at the given byte position, mapping at most
+          * CHUNK_INTS ints at a time.
+          * @param channel The file being read
+          * @param position Byte offset of the first value
+          * @param values The array to fill
+          * @return Byte offset just past the last value
+          * @throws IOException If the file cannot be read
+          */
+         static long readInts(FileChannel channel, long position, int[] values) throws IOException {
+             for(int from = 0; from < values.length; from += CHUNK_INTS){
+                 int count = Math.min(CHUNK_INTS, values.length - from);
+                 channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * count).asIntBuffer().get(values, from, count);
+                 position += 4L * count;
+             }
+             return position;
+         }
+     }
+     
+     /**
+      * A* search that uses the landmark lower bounds as its heuristic. The heap is ordered by
+      * distance plus lower bound, so the search is pulled towards the target. Distances and
+      * predecessors are kept exactly as in DijkstraAlgorithm, so getPath() works unchanged.
+      */
+     static class AltSearch extends DijkstraAlgorithm {
+         LandmarkIndex index; // Landmark distance tables of this graph
+         
+         /**
+          * Initializes the search with the graph, source, target, and landmark index.
+          * @param graph The graph
+          * @param source The starting vertex
+          * @param target The destination vertex
+          * @param index The landmark index built for this graph
+          */
+         AltSearch(Graph graph, int source, int target, LandmarkIndex index){
+             super(graph, source, target);
+             this.index = index;
+         }
+         
+         /**
+          * Executes the A* search until the target is settled.
+          */
+         @Override
+         void findShortestPath(){
+             distances[source] = 0;
+             
+             CustomMinHeap priorityQueue = new CustomMinHeap(graph.vertexCount);
+             priorityQueue.insert(new HeapElement(source, index.lowerBound(source, target)));
+             
+             while(!priorityQueue.isEmpty()){
+                 int u = priorityQueue.extractMin().vertex;
+                 if(u == target){
+                     break;
+                 }
+                 
+                 for(DirectedEdge edge : graph.adjacencyList.get(u)){
+                     int v = edge.destination;
+                     if(distances[u] + edge.weight < distances[v]){
+                         distances[v] = distances[u] + edge.weight;
+                         predecessors[v] = u;
+                         int key = distances[v] + index.lowerBound(v, target);
+                         if(priorityQueue.contains(v)){
+                             priorityQueue.decreaseKey(v, key);
+                         }
+                         else{
+                             priorityQueue.insert(new HeapElement(v, key));
+                         }
+                     }
+                 }
+             }
+         }
+     }
+     
      /**
       * The main class to execute the ShortestPathFinder program.
       * It parses input, constructs the graph, runs Dijkstra's algorithm, and outputs the result.
       */
      public static void main(String[] args) {
-         // Ensure that exactly two command-line arguments are provided
-         if(args.length != 2){
-             System.out.println("Usage: java ShortestPathFinder <start_vertex> <end_vertex>");
+         // Ensure that the two vertices and an optional engine are provided
+         if(args.length < 2 || args.length > 5 || (args.length > 3 && !args[2].equals("alt"))){
+             System.out.println("Usage: java ShortestPathFinder <start_vertex> <end_vertex> "
+                     + "[lazy|full|bidirectional|alt [<landmark_file> [<landmarks>]]]");
+             return;
+         }
+         
+         // The engine defaults to the lazy single-target search
+         String engine = args.length >= 3 ? args[2] : "lazy";
+         if(!engine.equals("lazy") && !engine.equals("full") && !engine.equals("bidirectional") && !engine.equals("alt")){
+             System.out.println("Error: Unknown engine " + engine + ", expected lazy, full, bidirectional or alt.");
              return;
          }
          
+         // ALT settings: the landmark file is loaded if it exists and written otherwise
+         String landmarkFile = args.length >= 4 ? args[3] : null;
+         int landmarkCount = 16;
+         if(args.length == 5){
+             try {
+                 landmarkCount = Integer.parseInt(args[4]);
+             } catch(NumberFormatException e){
+                 System.out.println("Error: Number of landmarks must be an integer.");
+                 return;
+             }
+             if(landmarkCount < 1){
+                 System.out.println("Error: Number of landmarks must be positive.");
+                 return;
+             }
+         }
+         
          int startVertex, endVertex;
          try {
              startVertex = Integer.parseInt(args[0]);
@@ -294,67 +747,67 @@
          }
          
          try {
-             Scanner scanner = new Scanner(System.in);
+             EdgeListReader reader = new EdgeListReader(System.in);
              
              // Read the number of vertices and edges
-             if(!scanner.hasNextInt()){
+             if(!reader.hasNextInt()){
                  System.out.println("Error: Number of vertices expected.");
-                 scanner.close();
+                 reader.close();
                  return;
              }
-             int numberOfVertices = scanner.nextInt();
+             int numberOfVertices = reader.nextInt();
              
-             if(!scanner.hasNextInt()){
+             if(!reader.hasNextInt()){
                  System.out.println("Error: Number of edges expected.");
-                 scanner.close();
+                 reader.close();
                  return;
              }
-             int numberOfEdges = scanner.nextInt();
+             int numberOfEdges = reader.nextInt();
              
              // Initialize the graph
              Graph graph = new Graph(numberOfVertices);
              
              // Read each edge and add to the graph
              for(int i = 0; i < numberOfEdges; i++){
-                 if(!scanner.hasNextInt()){
+                 if(!reader.hasNextInt()){
                      System.out.println("Error: Edge start vertex expected.");
-                     scanner.close();
+                     reader.close();
                      return;
                  }
-                 int from = scanner.nextInt();
+                 int from = reader.nextInt();
                  
-                 if(!scanner.hasNextInt()){
+                 if(!reader.hasNextInt()){
                      System.out.println("Error: Edge end vertex expected.");
-                     scanner.close();
+                     reader.close();
                      return;
                  }
-                 int to = scanner.nextInt();
+                 int to = reader.nextInt();
                  
-                 if(!scanner.hasNextInt()){
+                 if(!reader.hasNextInt()){
                      System.out.println("Error: Edge weight expected.");
-                     scanner.close();
+                     reader.close();
                      return;
                  }
-                 int weight = scanner.nextInt();
+                 int weight = reader.nextInt();
                  
                  // Validate vertex indices
                  if(from < 0 || from >= numberOfVertices || to < 0 || to >= numberOfVertices){
                      System.out.println("Error: Vertex numbers must be between 0 and " + (numberOfVertices - 1));
-                     scanner.close();
+                     reader.close();
                      return;
                  }
                  
                  // Validate edge weight
                  if(weight <= 0){
                      System.out.println("Error: Edge weights must be positive integers.");
-                     scanner.close();
+                     reader.close();
                      return;
                  }
                  
                  graph.addDirectedEdge(from, to, weight);
              }
              
-             scanner.close();
+             reader.close();
              
              // Validate start and end vertices
              if(startVertex < 0 || startVertex >= numberOfVertices || endVertex < 0 || endVertex >= numberOfVertices){
@@ -362,9 +815,35 @@
                  return;
              }
              
-             // Initialize and execute Dijkstra's algorithm
-             DijkstraAlgorithm dijkstra = new DijkstraAlgorithm(graph, startVertex, endVertex);
-             dijkstra.findShortestPath();
+             // Initialize and execute Dijkstra's algorithm with the selected engine
+             DijkstraAlgorithm dijkstra;
+             if(engine.equals("bidirectional")){
+                 dijkstra = new BidirectionalDijkstra(graph, startVertex, endVertex);
+                 dijkstra.findShortestPath();
+             }
+             else if(engine.equals("alt")){
+                 LandmarkIndex index;
+                 if(landmarkFile != null && Files.exists(Paths.get(landmarkFile))){
+                     index = LandmarkIndex.load(landmarkFile, numberOfVertices);
+                 }
+                 else{
+                     index = LandmarkIndex.build(graph, landmarkCount);
+                     if(landmarkFile != null){
+                         index.save(landmarkFile);
+                     }
+                 }
+                 dijkstra = new AltSearch(graph, startVertex, endVertex, index);
+                 dijkstra.findShortestPath();
+             }
+             else{
+                 dijkstra = new DijkstraAlgorithm(graph, startVertex, endVertex);
+                 if(engine.equals("full")){
+                     dijkstra.findShortestPath();
+                 }
+                 else{
+                     dijkstra.findShortestPathToTarget();
+                 }
+             }
              int shortestDistance = dijkstra.getShortestDistance();
              
              // Output the result